@@ -608,9 +608,9 @@ public class Templates {
       ("Vertx".equals(className) ? RenderHelpers.renderFile("extensions/VertxObject.ftl")+ "\n" : "") +
       "  implicit class "+ className + "Scala" + assembleTypeParamsForScala(typeParams) + "(val asJava: " + nonGenericType + assembleTypeParamsForScala(typeParams) + ") extends AnyVal {\n" +
       ("Vertx".equals(className) ? RenderHelpers.renderFile("extensions/Vertx.ftl")+ "\n" : "") +
-      ("Vertx".equals(className) ? RenderHelpers.renderFile("extensions/executeblocking.ftl")+ "\n" : "") +
-      ("Context".equals(className) ? RenderHelpers.renderFile("extensions/executeblocking.ftl") + "\n" : "") +
-      ("WorkerExecutor".equals(className) ? RenderHelpers.renderFile("extensions/executeblocking.ftl") + "\n" : "") +
+      ("Vertx".equals(className) ? renderExecuteBlocking("asJava.getOrCreateContext()") + "\n" : "") +
+      ("Context".equals(className) ? renderExecuteBlocking("asJava") + "\n" : "") +
+      ("WorkerExecutor".equals(className) ? renderExecuteBlocking("io.vertx.core.Vertx.currentContext()") + "\n" : "") +
       "\n" +
       nullableMethodsRendered +
       "\n" +
@@ -621,6 +621,15 @@ public class Templates {
       "  }\n";
   }
 
+  /**
+   * Renders the executeBlocking-extensions, callingContext is the expression for the context results are completed on.
+   * A WorkerExecutor doesn't expose its Vert.x instance, so it uses the current context. Outside of a context the
+   * results are completed on the thread that ran the blocking code, and streaming them is rejected.
+   */
+  private static String renderExecuteBlocking(String callingContext) throws IOException {
+    return RenderHelpers.renderFile("extensions/executeblocking.ftl").replace("${callingContext}", callingContext);
+  }
+
 
   /**
    * Main entry point which renders the packagae-object.
@@ -2,11 +2,52 @@
   import io.vertx.core.MultiMap
   import io.vertx.core.eventbus.Message
 
+  /**
+    * Extractors for [[io.vertx.core.eventbus.Message]]s.
+    *
+    * The extractors are name-based and return value classes, so matching allocates nothing. Only the parts bound
+    * by the pattern are read, e.g. `case Message(address, _, _, _, body)` doesn't create the headers.
+    */
   object Message{
     type Address = String
     type Headers = MultiMap
     type ReplyAddress = String
     type Send = Boolean
-    def unapply[T](message: MessageScala[T]): scala.Option[(Address, Headers, ReplyAddress, Send, T)] = Some(message.asJava.address(), message.asJava.headers(), message.asJava.replyAddress(), message.asJava.isSend, message.asJava.body())
-  }
+    def unapply[T](message: MessageScala[T]): Parts[T] = new Parts[T](message.asJava)
+
+    /**
+      * Matches only the body: `case Message.Body(body) =>`.
+      */
+    object Body {
+      def unapply[T](message: MessageScala[T]): BodyPart[T] = new BodyPart[T](message.asJava)
+    }
+
+    /**
+      * Matches the address and the body: `case Message.AddressBody(address, body) =>`.
+      */
+    object AddressBody {
+      def unapply[T](message: MessageScala[T]): AddressBodyParts[T] = new AddressBodyParts[T](message.asJava)
+    }
 
+    final class Parts[T](val asJava: io.vertx.core.eventbus.Message[T]) extends AnyVal {
+      def isEmpty: Boolean = false
+      def get: Parts[T] = this
+      def _1: Address = asJava.address()
+      def _2: Headers = asJava.headers()
+      def _3: ReplyAddress = asJava.replyAddress()
+      def _4: Send = asJava.isSend
+      def _5: T = asJava.body()
+    }
+
+    final class BodyPart[T](val asJava: io.vertx.core.eventbus.Message[T]) extends AnyVal {
+      def isEmpty: Boolean = false
+      def get: T = asJava.body()
+    }
+
+    final class AddressBodyParts[T](val asJava: io.vertx.core.eventbus.Message[T]) extends AnyVal {
+      def isEmpty: Boolean = false
+      def get: AddressBodyParts[T] = this
+      def _1: Address = asJava.address()
+      def _2: T = asJava.body()
+    }
+  }
@@ -5,17 +5,54 @@
       *
       * When the code is complete the returned Future will be completed with the result.
       *
+      * With [[io.vertx.lang.scala.BlockingMode.VirtualThread]] the code runs on a virtual thread instead and the Future is completed
+      * on the calling context.
+      *
       * @param blockingFunction function containing blocking code
       * @param ordered if true then if executeBlocking is called several times on the same context, the executions for that context will be executed serially, not in parallel. if false then they will be no ordering guarantees
+      * @param blockingMode where to run the blocking code, the worker pool is used if there is no implicit BlockingMode in scope
       * @return a Future representing the result of the blocking operation
       */
-    def executeBlockingFuture[T](blockingFunction: () => T, ordered: Boolean = true): concurrent.Future[T] = {
-      val promise = concurrent.Promise[T]
-      val h: Handler[io.vertx.core.Promise[T]] = {f => util.Try(blockingFunction()) match {
-        case util.Success(s) => f.complete(s)
-        case util.Failure(t) => f.fail(t)
-      }}
-      asJava.executeBlocking[T](h, ordered, {h:AsyncResult[T] => {if (h.succeeded()) promise.success(h.result()) else promise.failure(h.cause());()} })
-      promise.future
+    def executeBlockingFuture[T](blockingFunction: () => T, ordered: Boolean = true)(implicit blockingMode: io.vertx.lang.scala.BlockingMode = io.vertx.lang.scala.BlockingMode.WorkerPool): concurrent.Future[T] = {
+      if (blockingMode == io.vertx.lang.scala.BlockingMode.VirtualThread && io.vertx.lang.scala.VirtualThreads.isSupported) {
+        io.vertx.lang.scala.VirtualThreads.executeBlocking(blockingFunction, ${callingContext})
+      } else {
+        val promise = concurrent.Promise[T]
+        val h: Handler[io.vertx.core.Promise[T]] = {f => util.Try(blockingFunction()) match {
+          case util.Success(s) => f.complete(s)
+          case util.Failure(t) => f.fail(t)
+        }}
+        asJava.executeBlocking[T](h, ordered, {h:AsyncResult[T] => {if (h.succeeded()) promise.success(h.result()) else promise.failure(h.cause());()} })
+        promise.future
+      }
     }
 
+    /**
+      * Safely execute a batch of blocking functions on the worker pool, running at most `parallelism` of them at the
+      * same time. Only `parallelism` workers are submitted, each of them runs functions until the batch is done.
+      *
+      * @param blockingFunctions functions containing blocking code
+      * @param parallelism maximum number of functions running at the same time
+      * @return a Future of all results in the order of the functions, failed with the first failure
+      */
+    def executeBlockingAll[T](blockingFunctions: Iterable[() => T], parallelism: Int): concurrent.Future[Seq[T]] =
+      io.vertx.lang.scala.BulkBlocking.all(blockingFunctions, parallelism, ${callingContext}, worker => {
+        asJava.executeBlocking[Unit]((p: io.vertx.core.Promise[Unit]) => {worker(); p.complete()}, false)
+        ()
+      })
+
+    /**
+      * Like [[executeBlockingAll]] but emits the results in completion order. Workers stop picking up functions while
+      * `bufferSize` results are waiting to be consumed.
+      *
+      * @param blockingFunctions functions containing blocking code
+      * @param parallelism maximum number of functions running at the same time
+      * @param bufferSize maximum number of results waiting to be consumed
+      * @return a stream of the results, to be used from the calling context
+      */
+    def executeBlockingStream[T](blockingFunctions: Iterable[() => T], parallelism: Int, bufferSize: Int = 256): io.vertx.core.streams.ReadStream[T] =
+      io.vertx.lang.scala.BulkBlocking.stream(blockingFunctions, parallelism, bufferSize, ${callingContext}, worker => {
+        asJava.executeBlocking[Unit]((p: io.vertx.core.Promise[Unit]) => {worker(); p.complete()}, false)
+        ()
+      })
+
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.lang.scala.onthefly
+
+import java.io.File
+import java.lang.ref.WeakReference
+import java.util
+import java.util.concurrent.ConcurrentHashMap
+
+import scala.collection.mutable
+import scala.io.Source
+import scala.util.Using
+
+/**
+  * A scala-file on the classpath, compiled on demand when code imports the class it defines.
+  *
+  * @param className the imported class
+  * @param resource  path of the file on the classpath
+  * @param code      content of the file
+  * @param imports   the classes imported by the file
+  */
+case class ClasspathSource(className: String, resource: String, code: String, imports: Seq[String])
+
+/**
+  * Finds the scala-files on the classpath that imported classes have to be compiled from.
+  *
+  * Lookups are cached, including the negative ones: an imported name that is a class on the classpath or that
+  * has no scala-file (e.g. `scala.concurrent` from `import scala.concurrent._`) is only probed once. Together with
+  * the imports of each found file this forms the dependency graph between the scala-files on the classpath. A found
+  * scala-file that is a file on the file system is read again once its modification time changed.
+  *
+  * The class loader is only referenced weakly, so the instance doesn't keep it from being collected.
+  *
+  * @param classLoader used to load classes and to find scala-files
+  */
+class ClasspathSources(classLoader: ClassLoader) {
+
+  private val loader = new WeakReference(classLoader)
+
+  private val sources = new ConcurrentHashMap[String, ClasspathSources.Lookup]()
+
+  /**
+    * @return the scala-file the class has to be compiled from, None if it's on the classpath already or there is no
+    *         file for it
+    */
+  def find(className: String): Option[ClasspathSource] = {
+    val cached = sources.get(className)
+    if (cached != null && !cached.changed) {
+      cached.source
+    } else {
+      val found = lookup(className)
+      sources.put(className, found)
+      found.source
+    }
+  }
+
+  /**
+    * Returns the scala-files imported by the code, directly or by one of the other files, that are not compiled yet.
+    *
+    * @param code     the code whose imports are resolved
+    * @param compiled tells if a class has already been compiled by the caller
+    */
+  def dependencies(code: String, compiled: String => Boolean): Seq[ClasspathSource] = {
+    val found = mutable.LinkedHashMap[String, ClasspathSource]()
+    var pending = ClasspathSources.importedClassNames(code)
+    while (pending.nonEmpty) {
+      val next = pending.distinct.flatMap(find).filterNot(s => found.contains(s.resource) || compiled(s.className))
+      next.foreach(s => found.put(s.resource, s))
+      pending = next.flatMap(_.imports)
+    }
+    found.values.toSeq
+  }
+
+  private def lookup(className: String): ClasspathSources.Lookup = Option(loader.get) match {
+    case None => ClasspathSources.Lookup(None, None, 0L)
+    case Some(classLoader) =>
+      val loadable = try {
+        classLoader.loadClass(className)
+        true
+      } catch {
+        case _: ClassNotFoundException | _: NoClassDefFoundError => false
+      }
+      val resource = className.replace('.', '/') + ".scala"
+      Option(classLoader.getResource(resource)).filterNot(_ => loadable) match {
+        case None => ClasspathSources.Lookup(None, None, 0L)
+        case Some(url) =>
+          val file = if (url.getProtocol == "file") Some(new File(url.toURI)) else None
+          val lastModified = file.map(_.lastModified()).getOrElse(0L)
+          val code = Using.resource(Source.fromInputStream(url.openStream(), "UTF-8"))(_.mkString)
+          ClasspathSources.Lookup(Some(ClasspathSource(className, resource, code, ClasspathSources.importedClassNames(code))),
+            file, lastModified)
+      }
+  }
+}
+
+object ClasspathSources {
+
+  private val importStatement = """(?m)(?:^|;)\s*import\s+([^;\n]+)""".r
+  private val qualifiedName = """[\w$]+(\.[\w$]+)*""".r
+
+  /**
+    * The result of a lookup, with the file and its modification time if the scala-file is on the file system.
+    */
+  private final case class Lookup(source: Option[ClasspathSource], file: Option[File], lastModified: Long) {
+    def changed: Boolean = file.exists(_.lastModified() != lastModified)
+  }
+
+  // The values only reference their class loader weakly, so entries go away with their class loader
+  private val shared = new util.WeakHashMap[ClassLoader, ClasspathSources]()
+
+  /**
+    * @return the instance shared by everybody using the same class loader
+    */
+  def apply(classLoader: ClassLoader): ClasspathSources = shared.synchronized {
+    shared.computeIfAbsent(classLoader, cl => new ClasspathSources(cl))
+  }
+
+  /**
+    * Parses the import statements of the code into the names of the imported classes.
+    *
+    * `import a.B, c.D` imports `a.B` and `c.D`, `import a.{B, C => D}` imports `a.B` and `a.C`. As the members of a
+    * wildcard import are unknown, `import a.b._` only yields the prefix `a.b`, which might be an object.
+    */
+  def importedClassNames(code: String): Seq[String] =
+    importStatement.findAllMatchIn(code).toSeq.flatMap { m =>
+      splitSelectors(m.group(1).split("//").head).flatMap(importedNames)
+    }.filter(qualifiedName.matches)
+
+  private def importedNames(expression: String): Seq[String] = {
+    val braces = expression.indexOf('{')
+    if (braces >= 0) {
+      val prefix = expression.substring(0, braces).trim.stripSuffix(".")
+      expression.substring(braces + 1).takeWhile(_ != '}').split(',').toSeq
+        .map(_.split("=>").head.trim)
+        .filter(_.nonEmpty)
+        .map(name => if (name == "_") prefix else s"$prefix.$name")
+    } else {
+      Seq(expression.trim.stripSuffix("._"))
+    }
+  }
+
+  /**
+    * Splits `a.B, c.{D, E}` into `a.B` and `c.{D, E}`.
+    */
+  private def splitSelectors(expressions: String): Seq[String] = {
+    val selectors = mutable.ArrayBuffer[String]()
+    var depth = 0
+    var start = 0
+    expressions.indices.foreach { i =>
+      expressions.charAt(i) match {
+        case '{' => depth += 1
+        case '}' => depth -= 1
+        case ',' if depth == 0 =>
+          selectors += expressions.substring(start, i)
+          start = i + 1
+        case _ =>
+      }
+    }
+    selectors += expressions.substring(start)
+    selectors.toSeq
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.lang.scala.onthefly
+
+import scala.concurrent.duration.FiniteDuration
+
+/**
+  * A message reported by scalac.
+  *
+  * @param severity `ERROR`, `WARNING` or `INFO`
+  * @param source   path of the source the message refers to, None if it isn't about a source
+  * @param line     line in the source, starting at 1, 0 if unknown
+  * @param column   column in the line, starting at 1, 0 if unknown
+  * @param message  the message as printed by scalac
+  */
+case class Diagnostic(severity: String, source: Option[String], line: Int, column: Int, message: String) {
+
+  override def toString: String =
+    s"${source.getOrElse("<no source>")}:$line:$column: ${severity.toLowerCase}: $message"
+}
+
+object Diagnostic {
+  val Error = "ERROR"
+  val Warning = "WARNING"
+  val Info = "INFO"
+}
+
+/**
+  * Outcome of a single compiler run.
+  *
+  * Phase durations are measured from the first unit a phase starts on to the first unit of the next phase, so work a
+  * phase does after its last unit (e.g. writing class files) is included. File durations are the sum of the time
+  * each phase spent on the file, including that work for the last file of a phase, so they are an approximation.
+  *
+  * @param sources        paths of the compiled sources
+  * @param duration       time the whole run took
+  * @param phaseDurations time spent in each phase, in the order the phases ran
+  * @param fileDurations  time spent on each source, by path
+  * @param diagnostics    everything reported by scalac, in the order it was reported
+  */
+case class CompilationResult(sources: Seq[String],
+                             duration: FiniteDuration,
+                             phaseDurations: Seq[(String, FiniteDuration)],
+                             fileDurations: Map[String, FiniteDuration],
+                             diagnostics: Seq[Diagnostic]) {
+
+  def errors: Seq[Diagnostic] = diagnostics.filter(_.severity == Diagnostic.Error)
+
+  def warnings: Seq[Diagnostic] = diagnostics.filter(_.severity == Diagnostic.Warning)
+
+  def hasErrors: Boolean = diagnostics.exists(_.severity == Diagnostic.Error)
+}
+
+/**
+  * Thrown when scalac reports errors, a [[ClassNotFoundException]] as that is what callers trying to load a class
+  * from a source expect.
+  *
+  * @param result the failed run, containing all diagnostics
+  */
+class CompilationException(val result: CompilationResult)
+  extends ClassNotFoundException(
+    s"Unable to compile sources: ${result.errors.headOption.map(_.toString).getOrElse("unknown error")}")
+
+/**
+  * Gets notified after each run of a [[ReusableCompiler]], e.g. to publish metrics.
+  */
+trait CompilationListener {
+
+  /**
+    * Called on the compiling thread after each run, whether it failed or not.
+    */
+  def compiled(result: CompilationResult): Unit
+}
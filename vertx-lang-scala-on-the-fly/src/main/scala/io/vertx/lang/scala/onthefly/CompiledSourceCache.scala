@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.lang.scala.onthefly
+
+import java.io.{File, IOException}
+import java.math.BigInteger
+import java.nio.charset.StandardCharsets
+import java.nio.file.{DirectoryNotEmptyException, FileAlreadyExistsException, Files, Path, StandardCopyOption}
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+
+import scala.io.Source
+import scala.util.Using
+
+/**
+  * Content-addressed cache for classes compiled from scala-files.
+  *
+  * Compiled classes are keyed by a hash of the source, the scala-files on the classpath it imports and the Scala
+  * version, so deploying the same source again (e.g. another instance of the same verticle) reuses the already
+  * loaded class instead of running scalac again. The imported scala-files are compiled along with the source, so a
+  * change to one of them changes the key as well.
+  *
+  * If a `targetDir` is given the compiler output is also stored there, in one directory per hash. These directories
+  * survive restarts: a source whose hash already has a directory is loaded from it without compiling. Output is
+  * compiled into a temporary directory and moved into place once complete, so several processes can share the same
+  * `targetDir`.
+  *
+  * @param targetDir where to keep compiled classes across restarts, in memory only if empty
+  */
+class CompiledSourceCache(targetDir: Option[File]) {
+
+  targetDir.foreach(dir => Files.createDirectories(dir.toPath))
+
+  // Loaded outside of the map, so different sources compile in parallel
+  private final class Entry(loader: => Class[_]) {
+    lazy val clazz: Class[_] = loader
+  }
+
+  private val compiled = new ConcurrentHashMap[String, Entry]()
+
+  // The sources OnTheFlyCompiler compiles along with the code
+  private val classpathSources = ClasspathSources(classOf[OnTheFlyCompiler].getClassLoader)
+
+  /**
+    * Returns the class defined by the given scala-file, compiling it if there is no cached version.
+    *
+    * @param sourceName  path to a scala-file, either on the file system or on the classpath
+    * @param classLoader used to look up scala-files on the classpath
+    * @return the class named like the file, None if the file doesn't exist
+    */
+  def findClass(sourceName: String, classLoader: ClassLoader): Option[Class[_]] =
+    readSource(sourceName, classLoader).map { code =>
+      val className = new File(sourceName).getName.stripSuffix(".scala")
+      findClass(className, code)
+    }
+
+  /**
+    * Returns the class compiled from the given code, compiling it if there is no cached version.
+    *
+    * @param className name of the class to load after compilation
+    * @param code      the code defining the class
+    * @return the compiled class
+    */
+  def findClass(className: String, code: String): Class[_] = {
+    val key = s"${CompiledSourceCache.hash(code, classpathSources.dependencies(code, _ => false))}-$className"
+    compiled.computeIfAbsent(key, _ => new Entry(load(key, className, code))).clazz
+  }
+
+  /**
+    * @return number of classes in the in-memory cache
+    */
+  def size: Int = compiled.size()
+
+  private def load(key: String, className: String, code: String): Class[_] = {
+    val compiler = targetDir match {
+      case Some(base) =>
+        val dir = new File(base, key)
+        if (!dir.isDirectory) {
+          compileTo(base.toPath, dir.toPath, code)
+        }
+        new OnTheFlyCompiler(Some(dir))
+      case None =>
+        val compiler = new OnTheFlyCompiler(None)
+        compiler.compileClass(code)
+        compiler
+    }
+    compiler.findClass(className)
+      .getOrElse(throw new ClassNotFoundException(s"$className is not defined by its source"))
+  }
+
+  private def compileTo(base: Path, dir: Path, code: String): Unit = {
+    val tmp = Files.createTempDirectory(base, s"${dir.getFileName}.")
+    try {
+      new OnTheFlyCompiler(Some(tmp.toFile)).compileClass(code)
+      Files.move(tmp, dir, StandardCopyOption.ATOMIC_MOVE)
+    } catch {
+      // another process compiled the same source in the meantime
+      case _: FileAlreadyExistsException | _: DirectoryNotEmptyException => ()
+    } finally {
+      if (Files.exists(tmp)) {
+        delete(tmp.toFile)
+      }
+    }
+  }
+
+  private def delete(file: File): Unit = {
+    Option(file.listFiles()).foreach(_.foreach(delete))
+    if (!file.delete()) {
+      throw new IOException(s"Unable to delete $file")
+    }
+  }
+
+  private def readSource(sourceName: String, classLoader: ClassLoader): Option[String] = {
+    val file = new File(sourceName)
+    if (file.exists()) {
+      Some(Using.resource(Source.fromFile(file, "UTF-8"))(_.mkString))
+    } else {
+      Option(classLoader.getResourceAsStream(sourceName))
+        .map(in => Using.resource(Source.fromInputStream(in, "UTF-8"))(_.mkString))
+    }
+  }
+}
+
+object CompiledSourceCache {
+
+  /**
+    * System property pointing to the directory compiled scala-files are cached in across restarts.
+    */
+  val TargetDirProperty = "vertx.scala.compiledSourceDir"
+
+  /**
+    * The cache shared by all deployments of this process, persistent if [[TargetDirProperty]] is set.
+    */
+  lazy val shared: CompiledSourceCache =
+    new CompiledSourceCache(Option(System.getProperty(TargetDirProperty)).map(new File(_)))
+
+  /**
+    * SHA-256 of the code and the Scala version, as class files of different compiler versions aren't compatible.
+    */
+  def hash(code: String): String = hash(code, Nil)
+
+  /**
+    * Like [[hash(code:String)*]] but also covers the scala-files compiled along with the code.
+    */
+  def hash(code: String, dependencies: Seq[ClasspathSource]): String = {
+    val digest = MessageDigest.getInstance("SHA-256")
+    digest.update(scala.util.Properties.versionNumberString.getBytes(StandardCharsets.UTF_8))
+    digest.update(code.getBytes(StandardCharsets.UTF_8))
+    dependencies.sortBy(_.resource).foreach { dependency =>
+      digest.update(0.toByte)
+      digest.update(dependency.resource.getBytes(StandardCharsets.UTF_8))
+      digest.update(0.toByte)
+      digest.update(dependency.code.getBytes(StandardCharsets.UTF_8))
+    }
+    String.format("%064x", new BigInteger(1, digest.digest()))
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.lang.scala.onthefly
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+import scala.collection.mutable
+import scala.tools.nsc.Settings
+
+/**
+  * A bounded pool of [[ReusableCompiler]]s.
+  *
+  * A Global is expensive to create and gets faster with each run as it warms up, but it can only compile one run at
+  * a time. The pool keeps up to `maxSize` of them and hands them out to [[OnTheFlyCompiler]]s, preferring one that
+  * is idle, so independent sources compile in parallel while the compilers stay warm across deployments.
+  *
+  * A compiler is handed out for an owner, e.g. an [[OnTheFlyCompiler]], and the owner gets the same compiler again
+  * as long as no other owner took it in between, as the symbols of classes it compiled earlier only exist in that
+  * compiler. Taken by another owner, the compiler swaps the classes of the previous owner for the ones of the new
+  * owner in its symbol table (see [[ReusableCompiler.ownedBy]]) and stays warm. So the classes of one owner are
+  * neither visible to nor replaced by the compilations of another, and stay isolated in the class loader of their
+  * owner.
+  *
+  * Every run of a compiler of the pool is reported to the [[CompilationListener]]s added to the pool.
+  *
+  * @param maxSize     maximum number of compilers
+  * @param newSettings creates the settings for a new compiler
+  */
+class CompilerPool(val maxSize: Int, newSettings: () => Settings) {
+
+  require(maxSize > 0, "maxSize must be greater than 0")
+
+  // Guarded by this
+  private val compilers = mutable.ArrayBuffer[ReusableCompiler]()
+  private var next = 0
+
+  private val listeners = new CopyOnWriteArrayList[CompilationListener]()
+
+  private val notifyListeners: CompilationListener = result => listeners.forEach(_.compiled(result))
+
+  /**
+    * Runs `f` with exclusive access to a compiler owned by `owner`.
+    *
+    * The compiler the owner used last is waited for if no other owner took it since. Otherwise an idle compiler is
+    * taken, a new one is created while there are less than `maxSize`, or the next one in turn is waited for.
+    *
+    * @param owner the owner of the compiled classes
+    */
+  def withCompiler[T](owner: AnyRef)(f: ReusableCompiler => T): T = {
+    val compiler = claim(owner)
+    try {
+      compiler.ownedBy(owner)
+      f(compiler)
+    } finally {
+      compiler.lock.unlock()
+    }
+  }
+
+  /**
+    * Reports the runs of all compilers of this pool, including the ones created before, to the listener.
+    */
+  def addListener(listener: CompilationListener): Unit = listeners.add(listener)
+
+  def removeListener(listener: CompilationListener): Unit = listeners.remove(listener)
+
+  /**
+    * @return number of compilers created so far
+    */
+  def size: Int = synchronized(compilers.size)
+
+  private def claim(owner: AnyRef): ReusableCompiler =
+    synchronized(compilers.find(_.owner eq owner)) match {
+      case Some(compiler) =>
+        // If another owner took it while waiting, ownedBy swaps the classes back
+        compiler.lock.lock()
+        compiler
+      case None => claimAny()
+    }
+
+  private def claimAny(): ReusableCompiler = {
+    val idle = synchronized {
+      compilers.find(_.lock.tryLock()).orElse {
+        if (compilers.size < maxSize) {
+          val compiler = ReusableCompiler(newSettings(), notifyListeners)
+          compiler.lock.lock()
+          compilers += compiler
+          Some(compiler)
+        } else {
+          None
+        }
+      }
+    }
+    idle.getOrElse {
+      val compiler = synchronized {
+        next = (next + 1) % compilers.size
+        compilers(next)
+      }
+      compiler.lock.lock()
+      compiler
+    }
+  }
+}
+
+object CompilerPool {
+
+  /**
+    * System property to set the size of the [[shared]] pool, defaults to the number of available cores.
+    */
+  val SizeProperty = "vertx.scala.compilerPoolSize"
+
+  /**
+    * The pool used by all [[OnTheFlyCompiler]]s that don't get their own.
+    */
+  lazy val shared: CompilerPool = new CompilerPool(
+    Option(System.getProperty(SizeProperty)).map(_.toInt).getOrElse(Runtime.getRuntime.availableProcessors()),
+    () => defaultSettings())
+
+  def defaultSettings(): Settings = {
+    val settings = new Settings()
+    settings.deprecation.value = true // enable detailed deprecation warnings
+    settings.unchecked.value = true // enable detailed unchecked warnings
+    settings.usejavacp.value = true
+    settings
+  }
+}
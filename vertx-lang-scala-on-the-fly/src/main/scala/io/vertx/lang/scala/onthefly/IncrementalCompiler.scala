@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.lang.scala.onthefly
+
+import java.io.File
+
+import scala.collection.mutable
+import scala.io.Source
+import scala.reflect.internal.util.{AbstractFileClassLoader, BatchSourceFile}
+import scala.tools.nsc.io.{AbstractFile, VirtualDirectory}
+import scala.util.Using
+
+/**
+  * Compiles scala-files and keeps them up to date, recompiling only what changed.
+  *
+  * For every added source the compiler remembers its hash, the modification time of its file, the top-level classes
+  * it defines and the ones it references. [[refresh]] recompiles the sources whose file changed, together with all
+  * sources that (transitively) reference a class of a changed source. All other classes are reused as they are.
+  *
+  * Every compilation creates a new generation: a class loader containing the classes of all sources. Classes loaded
+  * from an older generation keep working but don't see later changes, so instances have to be recreated from
+  * [[findClass]] after a [[refresh]].
+  *
+  * Sources imported by an added source are added as well if they are found on the classpath, like
+  * [[OnTheFlyCompiler.tryToCompileClass]] does.
+  *
+  * @param pool   the compilers to use
+  * @param parent the class loader the generations delegate to, also used to find sources on the classpath
+  */
+class IncrementalCompiler(pool: CompilerPool, parent: ClassLoader) {
+
+  def this() = this(CompilerPool.shared, classOf[IncrementalCompiler].getClassLoader)
+
+  private val classpathSources = ClasspathSources(parent)
+
+  private final class SourceUnit(val name: String, val file: Option[File]) {
+    var code = ""
+    var hash = ""
+    var lastModified = 0L
+    var compiled = CompiledUnit(name, Set.empty, Set.empty)
+    var classFiles = Map.empty[String, Array[Byte]]
+
+    def dependsOn(other: SourceUnit): Boolean = compiled.references.exists(other.compiled.defines)
+  }
+
+  // Guarded by this
+  private val units = mutable.LinkedHashMap[String, SourceUnit]()
+  private var loader = new AbstractFileClassLoader(new VirtualDirectory("(generation 0)", None), parent)
+  private var currentGeneration = 0
+
+  /**
+    * Compiles the scala-file, unless it was added before.
+    *
+    * @param sourceName path to a scala-file, either on the file system or on the classpath
+    * @return the class named like the file, None if the file doesn't exist
+    */
+  def add(sourceName: String): Option[Class[_]] = synchronized {
+    if (!units.contains(sourceName)) {
+      locate(sourceName).foreach { unit =>
+        val code = read(unit)
+        compile(withImports(Map(unit -> code)))
+      }
+    }
+    units.get(sourceName).flatMap(_ => findClass(new File(sourceName).getName.stripSuffix(".scala")))
+  }
+
+  /**
+    * Recompiles all sources whose file changed since they were compiled, and all sources depending on them.
+    * If the compilation fails the current generation stays in place and the next refresh tries again.
+    *
+    * @return the names of the recompiled sources, empty if nothing changed
+    */
+  def refresh(): Set[String] = synchronized {
+    val changed = units.values.flatMap { unit =>
+      unit.file.filter(f => f.isFile && f.lastModified() != unit.lastModified).flatMap { file =>
+        val code = read(unit)
+        if (CompiledSourceCache.hash(code) == unit.hash) {
+          unit.lastModified = file.lastModified()
+          None
+        } else {
+          Some(unit -> code)
+        }
+      }
+    }.toMap
+    if (changed.isEmpty) {
+      Set.empty
+    } else {
+      val affected = withDependents(changed.keySet)
+      compile(withImports(affected.map(unit => unit -> changed.getOrElse(unit, unit.code)).toMap))
+      affected.map(_.name)
+    }
+  }
+
+  /**
+    * @param className name of the class to look for
+    * @return the class from the current generation
+    */
+  def findClass(className: String): Option[Class[_]] = synchronized(loader).tryToLoadClass(className)
+
+  /**
+    * @return the class loader of the current generation
+    */
+  def classLoader: ClassLoader = synchronized(loader)
+
+  /**
+    * @return number of compilations so far
+    */
+  def generation: Int = synchronized(currentGeneration)
+
+  /**
+    * @return the names of all added sources, including the imported ones
+    */
+  def sources: Set[String] = synchronized(units.keySet.toSet)
+
+  private def withDependents(changed: Set[SourceUnit]): Set[SourceUnit] = {
+    var affected = changed
+    var more = units.values.filter(u => !affected(u) && affected.exists(u.dependsOn)).toSet
+    while (more.nonEmpty) {
+      affected ++= more
+      more = units.values.filter(u => !affected(u) && affected.exists(u.dependsOn)).toSet
+    }
+    affected
+  }
+
+  /**
+    * Adds the sources imported by the given ones that aren't known yet and can't be loaded from the class path.
+    */
+  private def withImports(sources: Map[SourceUnit, String]): Map[SourceUnit, String] = {
+    var all = sources
+    var pending = sources.toSeq
+    while (pending.nonEmpty) {
+      val imported = pending.flatMap { case (_, code) =>
+        ClasspathSources.importedClassNames(code)
+      }.distinct.flatMap(classpathSources.find).flatMap { source =>
+        if (units.contains(source.resource) || all.keys.exists(_.name == source.resource)) None else locate(source.resource)
+      }
+      pending = imported.map(unit => unit -> read(unit))
+      all ++= pending
+    }
+    all
+  }
+
+  private def compile(sources: Map[SourceUnit, String]): Unit = {
+    val ordered = sources.toSeq.sortBy(_._1.name)
+    val output = new VirtualDirectory("(memory)", None)
+    val results = pool.withCompiler(this) { c =>
+      c.compileUnits(ordered.map { case (unit, code) => new BatchSourceFile(unit.name, code) }.toList, output)
+    }
+    val classFiles = IncrementalCompiler.classFiles(output)
+    ordered.zip(results).foreach { case ((unit, code), result) =>
+      unit.code = code
+      unit.hash = CompiledSourceCache.hash(code)
+      unit.lastModified = unit.file.map(_.lastModified()).getOrElse(0L)
+      unit.compiled = result
+      unit.classFiles = classFiles.filter { case (path, _) =>
+        val className = path.stripSuffix(".class").replace('/', '.')
+        result.defines.exists(d => className == d || className.startsWith(d + "$"))
+      }
+      units.put(unit.name, unit)
+    }
+    currentGeneration += 1
+    val generation = new VirtualDirectory(s"(generation $currentGeneration)", None)
+    units.values.foreach(_.classFiles.foreach { case (path, bytes) => IncrementalCompiler.write(generation, path, bytes) })
+    loader = new AbstractFileClassLoader(generation, parent)
+  }
+
+  private def locate(sourceName: String): Option[SourceUnit] = {
+    val file = new File(sourceName)
+    if (file.isFile) {
+      Some(new SourceUnit(sourceName, Some(file)))
+    } else {
+      Option(parent.getResource(sourceName)).map { url =>
+        new SourceUnit(sourceName, if (url.getProtocol == "file") Some(new File(url.toURI)) else None)
+      }
+    }
+  }
+
+  private def read(unit: SourceUnit): String = unit.file match {
+    case Some(file) => Using.resource(Source.fromFile(file, "UTF-8"))(_.mkString)
+    case None => Using.resource(Source.fromInputStream(parent.getResourceAsStream(unit.name), "UTF-8"))(_.mkString)
+  }
+}
+
+object IncrementalCompiler {
+
+  private def classFiles(dir: AbstractFile, prefix: String = ""): Map[String, Array[Byte]] =
+    dir.iterator.flatMap { file =>
+      if (file.isDirectory) classFiles(file, s"$prefix${file.name}/")
+      else Map(s"$prefix${file.name}" -> file.toByteArray)
+    }.toMap
+
+  private def write(dir: AbstractFile, path: String, bytes: Array[Byte]): Unit = {
+    val segments = path.split('/')
+    val target = segments.init.foldLeft(dir)(_.subdirectoryNamed(_)).fileNamed(segments.last)
+    Using.resource(target.output)(_.write(bytes))
+  }
+}
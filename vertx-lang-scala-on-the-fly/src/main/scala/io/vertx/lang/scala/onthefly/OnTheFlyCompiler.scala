@@ -23,9 +23,8 @@ import java.security.MessageDigest
 
 import scala.collection.mutable
 import scala.io.Source
-import scala.io.Source.fromInputStream
 import scala.reflect.internal.util.{AbstractFileClassLoader, BatchSourceFile}
-import scala.tools.nsc.Settings
+import scala.reflect.runtime.universe.{TypeTag, typeOf}
 import scala.tools.nsc.io.{AbstractFile, VirtualDirectory}
 
 /**
@@ -35,12 +34,17 @@ import scala.tools.nsc.io.{AbstractFile, VirtualDirectory}
   *
   * We kept the original license from Twitter.
   *
+  * Compilation is done by a compiler from the given [[CompilerPool]], so independent instances compile in parallel.
+  *
   * @author <a href="mailto:jochen@codepitbull.de">Jochen Mader</a
   */
-class OnTheFlyCompiler(targetDir: Option[File]) {
+class OnTheFlyCompiler(targetDir: Option[File], pool: CompilerPool, maxCachedScripts: Int) {
+
+  def this(targetDir: Option[File], pool: CompilerPool) = this(targetDir, pool, OnTheFlyCompiler.DefaultMaxCachedScripts)
+
+  def this(targetDir: Option[File]) = this(targetDir, CompilerPool.shared)
 
   val defaultName = "(inline)"
-  val reg = "import\\s(.*)".r
   val that = this
 
   val storageForCompiledClasses = targetDir match {
@@ -48,29 +52,31 @@ class OnTheFlyCompiler(targetDir: Option[File]) {
     case None => new VirtualDirectory("(memory)", None)
   }
 
-  val cacheForCompiledClasses = mutable.Map[String, Class[_]]()
-
-  private val settings = new Settings()
-  settings.deprecation.value = true // enable detailed deprecation warnings
-  settings.unchecked.value = true // enable detailed unchecked warnings
-  settings.outputDirs.setSingleOutput(storageForCompiledClasses)
-  settings.usejavacp.value = true
-
-  val compiler = ReusableCompiler(settings)
+  /**
+    * The compiled scripts, each in its own class loader that is a child of [[classLoader]]. Scripts are kept in
+    * memory only, even if there is a `targetDir`.
+    */
+  val scriptCache = new ScriptCache(maxCachedScripts)
 
   val classLoader = new AbstractFileClassLoader(storageForCompiledClasses,
     this.getClass.getClassLoader)
 
+  private val classpathSources = ClasspathSources(this.getClass.getClassLoader)
+
+  // Classes compiled from the classpath into this compiler, guarded by this
+  private val compiledDependencies = mutable.Set[String]()
+
   /**
     * Compiles the code as a class into the class loader of this compiler.
     *
     * @param code the class to be compile
     */
-  def compileClass(code: String): Unit = {
-    reg.findAllIn(code).matchData.foreach { m =>
-      findClass(m.group(1))
-    }
-    compiler.compileSources(List(new BatchSourceFile(defaultName, code)))
+  def compileClass(code: String): Unit = synchronized {
+    val dependencies = classpathSources.dependencies(code, isCompiled)
+    compile(_.compileSources(
+      dependencies.map(d => new BatchSourceFile(d.resource, d.code)).toList :+ new BatchSourceFile(defaultName, code),
+      storageForCompiledClasses))
+    compiledDependencies ++= dependencies.map(_.className)
   }
 
   /**
@@ -79,19 +85,8 @@ class OnTheFlyCompiler(targetDir: Option[File]) {
     * @param code the snipped to be compile
     * @return the class resulting from the compilation
     */
-  def compileScript(code: String): Class[_] = {
-    val className = classNameForCode(code)
-    reg.findAllIn(code).matchData.foreach { m =>
-      findClass(m.group(1))
-    }
-    findClass(className).getOrElse {
-      val sourceFiles = List(
-        new BatchSourceFile(defaultName, wrapCodeInClass(className, code))
-      )
-      compiler.compileSources(sourceFiles)
-      findClass(className).get
-    }
-  }
+  def compileScript(code: String): Class[_] =
+    script(classNameForCode(code), code, wrapCodeInClass(_, code)).getClass
 
   /**
     * Compiles the source string into the class loader and
@@ -101,14 +96,80 @@ class OnTheFlyCompiler(targetDir: Option[File]) {
     * @tparam T the resulting class
     * @return an instance of the compiled-code
     */
-  def eval[T](code: String): T = {
-    val cls = compileScript(code)
-    cls
-      .getConstructor()
-      .newInstance()
-      .asInstanceOf[() => Any]
-      .apply()
-      .asInstanceOf[T]
+  def eval[T](code: String): T = compileFunction[T](code).apply()
+
+  /**
+    * Compiles the code-snippet once and returns a function evaluating it. Unlike [[eval]] calling the function
+    * doesn't hash the code or look anything up, so keep it around to evaluate the same code repeatedly.
+    *
+    * @param code the snipped to be compile
+    * @tparam R the result of the code
+    * @return a function evaluating the code, safe to be shared between threads if the code is
+    */
+  def compileFunction[R](code: String): () => R =
+    script(classNameForCode(code), code, wrapCodeInClass(_, code)).asInstanceOf[() => R]
+
+  /**
+    * Like [[compileFunction[R](code:String)*]] but the code is the body of a function with one parameter.
+    *
+    * {{{
+    * val double = compiler.compileFunction[Int, Int]("x", "x * 2")
+    * double(21) // 42
+    * }}}
+    *
+    * @param param name of the parameter in the code
+    * @param code  the snipped to be compile
+    * @tparam A the type of the parameter, it has to be accessible by its name
+    * @tparam R the result of the code
+    */
+  def compileFunction[A: TypeTag, R](param: String, code: String): A => R = {
+    val params = s"$param: ${typeOf[A]}"
+    script(classNameForCode(s"($params) => $code"), code, wrapCodeInFunction(_, params, typeOf[A].toString, code))
+      .asInstanceOf[A => R]
+  }
+
+  /**
+    * Like [[compileFunction[A,R](param:String,code:String)*]] with two parameters.
+    */
+  def compileFunction[A: TypeTag, B: TypeTag, R](param1: String, param2: String, code: String): (A, B) => R = {
+    val params = s"$param1: ${typeOf[A]}, $param2: ${typeOf[B]}"
+    script(classNameForCode(s"($params) => $code"), code, wrapCodeInFunction(_, params, s"${typeOf[A]}, ${typeOf[B]}", code))
+      .asInstanceOf[(A, B) => R]
+  }
+
+  /**
+    * Returns the instance of the script class, compiling it if it isn't cached.
+    *
+    * @param className name of the script class
+    * @param code      the code of the script, scanned for imports
+    * @param wrap      creates the source of the script class from its name
+    */
+  private def script(className: String, code: String, wrap: String => String): AnyRef = synchronized {
+    scriptCache.get(className).getOrElse {
+      val dependencies = classpathSources.dependencies(code, isCompiled)
+      if (dependencies.nonEmpty) {
+        compile(_.compileSources(dependencies.map(d => new BatchSourceFile(d.resource, d.code)).toList, storageForCompiledClasses))
+        compiledDependencies ++= dependencies.map(_.className)
+      }
+      val sourceFiles = List(
+        new BatchSourceFile(defaultName, wrap(className))
+      )
+      val output = new VirtualDirectory("(script)", None)
+      compile { c =>
+        try {
+          c.compileSources(sourceFiles, output)
+        } finally {
+          c.forget(className)
+        }
+      }
+      val instance = new AbstractFileClassLoader(output, classLoader)
+        .loadClass(className)
+        .getConstructor()
+        .newInstance()
+        .asInstanceOf[AnyRef]
+      scriptCache.put(className, instance)
+      instance
+    }
   }
 
   /**
@@ -119,7 +180,7 @@ class OnTheFlyCompiler(targetDir: Option[File]) {
     */
   def findClass(className: String): Option[Class[_]] = {
     synchronized {
-      cacheForCompiledClasses.get(className).orElse {
+      scriptCache.peek(className).map(_.getClass).orElse {
         classLoader.tryToLoadClass(className) match {
           case Some(c) => Some(c)
           case None => tryToCompileClass(className)
@@ -148,17 +209,25 @@ class OnTheFlyCompiler(targetDir: Option[File]) {
         findClass(Paths.get(className).getFileName.toString.replace(".scala",""))
       }
     } else {
-      val res =
-        classLoader.getResourceAsStream(className.replace(".", "/") + ".scala")
-      if (res == null)
-        None
-      else {
-        compileClass(fromInputStream(res).getLines().mkString("\n"))
-        findClass(className)
+      classpathSources.find(className) match {
+        case None => None
+        case Some(source) =>
+          compileClass(source.code)
+          findClass(className)
       }
     }
   }
 
+  private def isCompiled(className: String): Boolean =
+    compiledDependencies.contains(className) || classLoader.tryToLoadClass(className).isDefined
+
+  /**
+    * Runs `f` with a compiler from the pool owned by this instance, so the classes compiled earlier are known.
+    */
+  private def compile(f: ReusableCompiler => Unit): Unit = synchronized {
+    pool.withCompiler(this)(f)
+  }
+
   /**
     * Generate a classname based on the hashcode of the code.
     *
@@ -182,4 +251,23 @@ class OnTheFlyCompiler(targetDir: Option[File]) {
       s"  def apply() = {${code}}" +
       s"}"
   }
+
+  /**
+    * Wrap source code in a new class extending a function with parameters.
+    *
+    * @param className  name of the resulting class
+    * @param params     the parameters of the function, with their types
+    * @param paramTypes the types of the parameters
+    * @param code       the code snipped that should be wrapped into a class
+    * @return the resulting, wrapped code
+    */
+  private def wrapCodeInFunction(className: String, params: String, paramTypes: String, code: String): String = {
+    s"class ${className} extends ((${paramTypes}) => Any) {" +
+      s"  def apply(${params}) = {${code}}" +
+      s"}"
+  }
+}
+
+object OnTheFlyCompiler {
+  val DefaultMaxCachedScripts = 1024
 }
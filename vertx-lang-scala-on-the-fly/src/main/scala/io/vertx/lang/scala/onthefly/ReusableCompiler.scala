@@ -15,33 +15,264 @@
  */
 package io.vertx.lang.scala.onthefly
 
-import scala.reflect.internal.util.SourceFile
-import scala.tools.nsc.reporters.ConsoleReporter
-import scala.tools.nsc.{Global, Settings}
+import java.util
+import java.util.concurrent.locks.ReentrantLock
+
+import scala.collection.mutable
+import scala.concurrent.duration._
+import scala.reflect.internal.util.{Position, SourceFile}
+import scala.tools.nsc.io.AbstractFile
+import scala.tools.nsc.reporters.{ConsoleReporter, Reporter}
+import scala.tools.nsc.{Global, Phase, Settings}
 
 /**
   * The Scala-compiler retains state between compilations. Especially the reporter is problematic as it
   * is checked for errors on each run and the run won't start if any error from the previous run is not cleared.
   * This class also takes of creating the required run-Instances as these aren't reuasble betwen executions.
   *
+  * Runs are serialized, so an instance can be shared between threads (see [[CompilerPool]]). The classes compiled
+  * for one owner are only visible to the runs of that owner, see [[ownedBy]].
+  *
+  * Each run is timed per phase and per source, and everything scalac reports is captured (it is still printed to
+  * the console, too). The outcome is passed to the listener as a [[CompilationResult]].
+  *
   * @author <a href="mailto:jochen@codepitbull.de">Jochen Mader</a
   */
-class ReusableCompiler(settings: Settings) {
+class ReusableCompiler(settings: Settings, listener: CompilationListener) {
+
+  def this(settings: Settings) = this(settings, _ => ())
+
+  // Guarded by lock, cleared at the start of each run
+  private val diagnostics = mutable.ArrayBuffer[Diagnostic]()
+
+  private val reporter = new ConsoleReporter(settings) {
+    override def doReport(pos: Position, msg: String, severity: Reporter#Severity): Unit = {
+      diagnostics += Diagnostic(severity.toString, if (pos.isDefined) Some(pos.source.file.path) else None,
+        if (pos.isDefined) pos.line else 0, if (pos.isDefined) pos.column else 0, msg)
+      super.doReport(pos, msg, severity)
+    }
+  }
+
+  private[onthefly] val global = new Global(settings, reporter)
+
+  // Guarded by lock, only read without it by the pool to find the compiler of an owner
+  @volatile private[onthefly] var owner: AnyRef = _
+
+  // Top-level classes compiled for the current owner, by package and name, guarded by lock
+  private val ownedNames = mutable.Set[(global.Symbol, String)]()
 
-  private val reporter = new ConsoleReporter(settings)
+  // Top-level classes of previous owners, taken out of the symbol table until they own the compiler again
+  private val parked = new util.WeakHashMap[AnyRef, Seq[(global.Symbol, global.Symbol)]]()
 
-  private val global = new Global(settings, reporter)
+  private[onthefly] val lock = new ReentrantLock()
 
-  def compileSources(list: List[SourceFile]): Unit = {
-    val run = new global.Run
+  /**
+    * Hands the compiler to `owner`, keeping the Global and everything it loaded from the class path.
+    *
+    * The top-level classes compiled for the previous owner are taken out of the symbol table and parked, and the ones
+    * parked for `owner` are put back. So an owner neither sees the classes of another one nor has its classes
+    * replaced by classes of another one with the same name, while the compiler stays warm.
+    */
+  private[onthefly] def ownedBy(owner: AnyRef): Unit = {
+    lock.lock()
+    try {
+      if (this.owner ne owner) {
+        val previous = ownedNames.toSeq.flatMap { case (pkg, name) =>
+          val decls = declsOf(pkg)
+          Seq(decls.lookup(global.TypeName(name)), decls.lookup(global.TermName(name)))
+            .filter(_ != global.NoSymbol)
+            .map { sym =>
+              decls.unlink(sym)
+              pkg -> sym
+            }
+        }
+        ownedNames.clear()
+        if (this.owner != null && previous.nonEmpty) {
+          parked.put(this.owner, previous)
+        }
+        Option(parked.remove(owner)).foreach(_.foreach { case (pkg, sym) =>
+          val decls = declsOf(pkg)
+          decls.lookupAll(sym.name).toList.foreach(decls.unlink)
+          decls.enter(sym)
+          ownedNames += pkg -> sym.name.toString
+        })
+        this.owner = owner
+      }
+    } finally {
+      lock.unlock()
+    }
+  }
+
+  /**
+    * @throws CompilationException if scalac reports an error
+    */
+  def compileSources(list: List[SourceFile]): CompilationResult = {
+    lock.lock()
+    try {
+      succeeded(compile(list)._2)
+    } finally {
+      lock.unlock()
+    }
+  }
+
+  /**
+    * Compiles the sources into the given output directory instead of the one from the settings.
+    *
+    * @throws CompilationException if scalac reports an error
+    */
+  def compileSources(list: List[SourceFile], output: AbstractFile): CompilationResult =
+    withOutput(output)(compileSources(list))
+
+  /**
+    * Like [[compileSources(list:List[scala\.reflect\.internal\.util\.SourceFile],output*]] but returns the
+    * result of a failed run instead of throwing.
+    */
+  def tryCompileSources(list: List[SourceFile], output: AbstractFile): CompilationResult =
+    withOutput(output)(compile(list)._2)
+
+  /**
+    * Like [[compileSources(list:List[scala\.reflect\.internal\.util\.SourceFile],output*]] but also reports which
+    * top-level classes each source defines and which ones it references.
+    *
+    * @return one [[CompiledUnit]] per source, in the order of the sources
+    * @throws CompilationException if scalac reports an error
+    */
+  def compileUnits(list: List[SourceFile], output: AbstractFile): Seq[CompiledUnit] = withOutput(output) {
+    val (run, result) = compile(list)
+    succeeded(result)
+    val defines = run.symSource.toSeq.groupMap(_._2.path)(_._1.javaBinaryNameString.replace('/', '.'))
+    run.units.map { unit =>
+      val references = mutable.Set[String]()
+      unit.body.foreach { tree =>
+        val sym = tree.symbol
+        if (sym != null && sym != global.NoSymbol) {
+          val topLevel = sym.enclosingTopLevelClass
+          if (topLevel != null && topLevel != global.NoSymbol && !topLevel.hasPackageFlag) {
+            references += topLevel.javaBinaryNameString.replace('/', '.')
+          }
+        }
+      }
+      val path = unit.source.file.path
+      val defined = defines.getOrElse(path, Nil).toSet
+      CompiledUnit(path, defined, references.toSet -- defined)
+    }.toSeq
+  }
+
+  /**
+    * Removes a class of the empty package from the symbol table, so a compiler that compiles a stream of
+    * throw-away classes (e.g. scripts) doesn't keep a symbol for each of them.
+    */
+  def forget(className: String): Unit = {
+    lock.lock()
+    try {
+      val pkg = global.rootMirror.EmptyPackageClass
+      val decls = declsOf(pkg)
+      Seq(decls.lookup(global.TypeName(className)), decls.lookup(global.TermName(className)))
+        .filter(_ != global.NoSymbol)
+        .foreach(decls.unlink)
+      ownedNames -= pkg -> className
+    } finally {
+      lock.unlock()
+    }
+  }
+
+  /**
+    * The members of a package as the typer of the next run looks them up. Later phases of a run work on copies, e.g.
+    * flatten, so the current info of a package after a run isn't the one to change.
+    */
+  private def declsOf(pkg: global.Symbol): global.Scope = {
+    val run = global.currentRun
+    if (run == null || run.typerPhase == null) pkg.info.decls else global.enteringPhase(run.typerPhase)(pkg.info.decls)
+  }
+
+  /**
+    * Runs `f` with the output directory set to `output`, restoring the previous one afterwards.
+    */
+  private def withOutput[T](output: AbstractFile)(f: => T): T = {
+    lock.lock()
+    val previous = settings.outputDirs.getSingleOutput
+    try {
+      settings.outputDirs.setSingleOutput(output)
+      f
+    } finally {
+      previous.foreach(settings.outputDirs.setSingleOutput)
+      lock.unlock()
+    }
+  }
+
+  private def compile(list: List[SourceFile]): (global.Run, CompilationResult) = {
+    val run = new TimedRun
     reporter.reset()
-    run.compileSources(list)
-    if(reporter.hasErrors)
-      throw new ClassNotFoundException("Unable to compile sources, check logs.")
+    diagnostics.clear()
+    val start = System.nanoTime()
+    try {
+      run.compileSources(list)
+    } finally {
+      run.symSource.keys.foreach(sym => ownedNames += sym.enclosingPackageClass -> sym.name.toString)
+    }
+    val end = System.nanoTime()
+    run.finish(end)
+    val result = CompilationResult(list.map(_.file.path), (end - start).nanos, run.phaseDurations.toSeq,
+      run.fileDurations.toMap, diagnostics.toSeq)
+    listener.compiled(result)
+    (run, result)
+  }
+
+  private def succeeded(result: CompilationResult): CompilationResult =
+    if (result.hasErrors) throw new CompilationException(result) else result
+
+  /**
+    * Measures phases and units by the time between the starts of consecutive units, scalac informs the run about
+    * each unit a phase starts working on.
+    */
+  private final class TimedRun extends global.Run {
+    val phaseDurations = mutable.LinkedHashMap[String, FiniteDuration]()
+    val fileDurations = mutable.HashMap[String, FiniteDuration]()
+
+    private var phase: Option[(String, Long)] = None
+    private var unit: Option[(String, Long)] = None
+
+    override def informUnitStarting(ph: Phase, cu: global.CompilationUnit): Unit = {
+      val now = System.nanoTime()
+      if (!phase.exists(_._1 == ph.name)) {
+        finishPhase(now)
+        phase = Some(ph.name -> now)
+      }
+      finishUnit(now)
+      unit = Some(cu.source.file.path -> now)
+      super.informUnitStarting(ph, cu)
+    }
+
+    def finish(now: Long): Unit = {
+      finishUnit(now)
+      finishPhase(now)
+    }
+
+    private def finishPhase(now: Long): Unit = phase.foreach { case (name, start) =>
+      phaseDurations.update(name, phaseDurations.getOrElse(name, Duration.Zero) + (now - start).nanos)
+      phase = None
+    }
+
+    private def finishUnit(now: Long): Unit = unit.foreach { case (path, start) =>
+      fileDurations.update(path, fileDurations.getOrElse(path, Duration.Zero) + (now - start).nanos)
+      unit = None
+    }
   }
 }
 
+/**
+  * Top-level classes a source defines and references, by their binary name.
+  *
+  * @param source     path of the source
+  * @param defines    classes (and objects, ending with `$`) defined in the source
+  * @param references classes from outside the source used by it
+  */
+case class CompiledUnit(source: String, defines: Set[String], references: Set[String])
+
 object ReusableCompiler {
   def apply(settings: Settings): ReusableCompiler =
     new ReusableCompiler(settings)
+
+  def apply(settings: Settings, listener: CompilationListener): ReusableCompiler =
+    new ReusableCompiler(settings, listener)
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.lang.scala.onthefly
+
+import java.util
+
+/**
+  * The least recently used scripts compiled by an [[OnTheFlyCompiler]], kept as the single instance of their class.
+  *
+  * Each script lives in its own class loader, so once a script is evicted and no instance of it is left, its class
+  * and class loader can be garbage-collected.
+  *
+  * @param maxSize maximum number of scripts kept
+  */
+class ScriptCache(val maxSize: Int) {
+
+  require(maxSize >= 0, "maxSize must not be negative")
+
+  // All state is guarded by this
+  private var hits = 0L
+  private var misses = 0L
+  private var evictions = 0L
+
+  private val scripts = new util.LinkedHashMap[String, AnyRef](16, 0.75f, true) {
+    override def removeEldestEntry(eldest: util.Map.Entry[String, AnyRef]): Boolean = {
+      val evict = size() > maxSize
+      if (evict) {
+        evictions += 1
+        lookup.remove(eldest.getKey)
+      }
+      evict
+    }
+  }
+
+  // The same scripts, for lookups that must not change the eviction order
+  private val lookup = new util.HashMap[String, AnyRef]()
+
+  /**
+    * Looks up a script, counting a hit or a miss.
+    */
+  def get(className: String): Option[AnyRef] = synchronized {
+    val script = Option(scripts.get(className))
+    if (script.isDefined) hits += 1 else misses += 1
+    script
+  }
+
+  /**
+    * Looks up a script without counting it and without making it the most recently used one.
+    */
+  def peek(className: String): Option[AnyRef] = synchronized(Option(lookup.get(className)))
+
+  def put(className: String, script: AnyRef): Unit = synchronized {
+    lookup.put(className, script)
+    scripts.put(className, script)
+    ()
+  }
+
+  def stats: ScriptCacheStats = synchronized(ScriptCacheStats(hits, misses, evictions, scripts.size()))
+}
+
+/**
+  * Counters of a [[ScriptCache]].
+  *
+  * @param hits      lookups of scripts that were cached
+  * @param misses    lookups of scripts that had to be compiled
+  * @param evictions scripts dropped to stay within the maximum size
+  * @param size      scripts currently cached
+  */
+case class ScriptCacheStats(hits: Long, misses: Long, evictions: Long, size: Int)
@@ -0,0 +1,64 @@
+package io.vertx.lang.scala.onthefly
+
+import java.lang.ref.WeakReference
+import java.net.URLClassLoader
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+
+import org.junit.runner.RunWith
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+import org.scalatestplus.junit.JUnitRunner
+
+@RunWith(classOf[JUnitRunner])
+class ClasspathSourcesTest extends AnyFlatSpec with Matchers {
+
+  "Import statements" should "be parsed into the imported names" in {
+    val code =
+      """import a.b.C
+        |import a.b.{D, E => F, _}
+        |  import x.Y, z._ // comment
+        |import scala.concurrent.{Future => SFuture}; import q.R
+        |class Test { val important = "import not.This" }""".stripMargin
+    ClasspathSources.importedClassNames(code) shouldBe
+      Seq("a.b.C", "a.b.D", "a.b.E", "a.b", "x.Y", "z", "scala.concurrent.Future", "q.R")
+  }
+
+  "A class on the classpath" should "not have a source" in {
+    new ClasspathSources(getClass.getClassLoader).find(classOf[Extendthis].getName) shouldBe empty
+  }
+
+  "The dependencies of code" should "include the sources imported by other sources" in {
+    val sources = new ClasspathSources(getClass.getClassLoader)
+    val dependencies = sources.dependencies(
+      "import io.vertx.lang.scala.onthefly.{NotCompiled, TestClass}\nimport scala.concurrent._", _ => false)
+    dependencies.map(_.className) shouldBe Seq("io.vertx.lang.scala.onthefly.NotCompiled", "io.vertx.lang.scala.onthefly.TestClass")
+    sources.dependencies("import io.vertx.lang.scala.onthefly.NotCompiled", _ == "io.vertx.lang.scala.onthefly.NotCompiled") shouldBe empty
+  }
+
+  "A changed scala-file" should "be read again" in {
+    val dir = Files.createTempDirectory("sources")
+    val file = dir.resolve("Changing.scala")
+    Files.write(file, "class Changing".getBytes(StandardCharsets.UTF_8))
+    val sources = new ClasspathSources(new URLClassLoader(Array(dir.toUri.toURL), null))
+    sources.find("Changing").map(_.code) shouldBe Some("class Changing")
+
+    Files.write(file, "class Changing { def changed = 1 }".getBytes(StandardCharsets.UTF_8))
+    file.toFile.setLastModified(file.toFile.lastModified() + 2000)
+    sources.find("Changing").map(_.code) shouldBe Some("class Changing { def changed = 1 }")
+  }
+
+  "The shared instance of a class loader" should "not keep the class loader from being collected" in {
+    var loader = new URLClassLoader(Array(Files.createTempDirectory("sources").toUri.toURL), null)
+    ClasspathSources(loader).find("Missing") shouldBe empty
+    val collected = new WeakReference(loader)
+    loader = null
+    var attempts = 0
+    while (collected.get() != null && attempts < 20) {
+      System.gc()
+      Thread.sleep(50)
+      attempts += 1
+    }
+    collected.get() shouldBe null
+  }
+}
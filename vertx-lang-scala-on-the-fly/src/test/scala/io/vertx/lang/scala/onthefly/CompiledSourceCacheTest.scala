@@ -0,0 +1,60 @@
+package io.vertx.lang.scala.onthefly
+
+import java.io.File
+import java.nio.file.Files
+
+import org.junit.runner.RunWith
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+import org.scalatestplus.junit.JUnitRunner
+
+@RunWith(classOf[JUnitRunner])
+class CompiledSourceCacheTest extends AnyFlatSpec with Matchers {
+
+  "Loading the same source twice" should "compile it only once" in {
+    val cache = new CompiledSourceCache(None)
+    val first = cache.findClass("SourceClass.scala", getClass.getClassLoader)
+    val second = cache.findClass("SourceClass.scala", getClass.getClassLoader)
+    first shouldBe defined
+    second.get should be theSameInstanceAs first.get
+    cache.size shouldBe 1
+  }
+
+  "A changed source" should "be compiled again" in {
+    val cache = new CompiledSourceCache(None)
+    val first = cache.findClass("Changing", "class Changing { def doIt(): String = \"first\" }")
+    val second = cache.findClass("Changing", "class Changing { def doIt(): String = \"second\" }")
+    second shouldNot be theSameInstanceAs first
+    second.getMethod("doIt").invoke(second.getDeclaredConstructor().newInstance()) shouldBe "second"
+  }
+
+  "A source compiled into a targetDir" should "be loaded from there by a new cache" in {
+    val dir = Files.createTempDirectory("compiled").toFile
+    new CompiledSourceCache(Some(dir)).findClass("SourceClass.scala", getClass.getClassLoader) shouldBe defined
+
+    val compiledDirs = dir.listFiles()
+    compiledDirs should have size 1
+    new File(compiledDirs.head, "SourceClass.class").exists() shouldBe true
+
+    val clazz = new CompiledSourceCache(Some(dir)).findClass("SourceClass.scala", getClass.getClassLoader).get
+    clazz.getMethod("doIt").invoke(clazz.getDeclaredConstructor().newInstance()) shouldBe "works"
+    dir.listFiles() should have size 1
+  }
+
+  "A source importing a scala-file from the classpath" should "be keyed by that file, too" in {
+    val dir = Files.createTempDirectory("compiled").toFile
+    val code = "import io.vertx.lang.scala.onthefly.TestClass\nclass UsesTestClass { def doIt() = new TestClass() }"
+    new CompiledSourceCache(Some(dir)).findClass("UsesTestClass", code)
+
+    val dependencies = ClasspathSources(classOf[OnTheFlyCompiler].getClassLoader).dependencies(code, _ => false)
+    dependencies.map(_.className) shouldBe Seq("io.vertx.lang.scala.onthefly.TestClass")
+    val key = CompiledSourceCache.hash(code, dependencies)
+    key shouldNot be(CompiledSourceCache.hash(code))
+    CompiledSourceCache.hash(code, dependencies.map(_.copy(code = "class TestClass { def changed = 1 }"))) shouldNot be(key)
+    dir.listFiles().map(_.getName) shouldBe Array(s"$key-UsesTestClass")
+  }
+
+  "A missing source" should "not be found" in {
+    new CompiledSourceCache(None).findClass("Missing.scala", getClass.getClassLoader) shouldBe empty
+  }
+}
@@ -0,0 +1,95 @@
+package io.vertx.lang.scala.onthefly
+
+import java.util.concurrent.{Callable, Executors, TimeUnit}
+
+import org.junit.runner.RunWith
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+import org.scalatestplus.junit.JUnitRunner
+
+@RunWith(classOf[JUnitRunner])
+class CompilerPoolTest extends AnyFlatSpec with Matchers {
+
+  "Compilers sharing a pool" should "compile independent sources in parallel" in {
+    val pool = new CompilerPool(2, () => CompilerPool.defaultSettings())
+    val executor = Executors.newFixedThreadPool(4)
+    try {
+      val results = (1 to 4).map { i =>
+        executor.submit(new Callable[Class[_]] {
+          override def call(): Class[_] = {
+            val compiler = new OnTheFlyCompiler(None, pool)
+            compiler.compileClass(s"class Parallel$i { def doIt(): Int = $i }")
+            compiler.findClass(s"Parallel$i").get
+          }
+        })
+      }
+      results.zipWithIndex.foreach { case (result, i) =>
+        val clazz = result.get(60, TimeUnit.SECONDS)
+        clazz.getMethod("doIt").invoke(clazz.getDeclaredConstructor().newInstance()) shouldBe i + 1
+      }
+      pool.size should be <= 2
+    } finally {
+      executor.shutdown()
+    }
+  }
+
+  "Classes compiled by a shared compiler" should "only be visible to the OnTheFlyCompiler that compiled them" in {
+    val pool = new CompilerPool(1, () => CompilerPool.defaultSettings())
+    val first = new OnTheFlyCompiler(None, pool)
+    val second = new OnTheFlyCompiler(None, pool)
+    first.compileClass("class OnlyInFirst")
+    second.compileClass("class OnlyInSecond")
+
+    first.findClass("OnlyInFirst") shouldBe defined
+    second.findClass("OnlyInFirst") shouldBe empty
+    second.findClass("OnlyInSecond") shouldBe defined
+    pool.size shouldBe 1
+  }
+
+  "A class compiled earlier" should "be usable by later compilations of the same OnTheFlyCompiler" in {
+    val pool = new CompilerPool(2, () => CompilerPool.defaultSettings())
+    val compiler = new OnTheFlyCompiler(None, pool)
+    val other = new OnTheFlyCompiler(None, pool)
+    compiler.compileClass("class Dependency { def doIt(): String = \"dependency\" }")
+    other.compileClass("class Unrelated")
+    compiler.compileClass("class Dependent { def doIt(): String = new Dependency().doIt() }")
+
+    val clazz = compiler.findClass("Dependent").get
+    clazz.getMethod("doIt").invoke(clazz.getDeclaredConstructor().newInstance()) shouldBe "dependency"
+  }
+
+  "An OnTheFlyCompiler" should "not compile against classes of another one sharing its compiler" in {
+    val pool = new CompilerPool(1, () => CompilerPool.defaultSettings())
+    val first = new OnTheFlyCompiler(None, pool)
+    val second = new OnTheFlyCompiler(None, pool)
+    first.compileClass("class OnlyInA { def hi: String = \"hi\" }")
+
+    a[CompilationException] should be thrownBy second.compileClass("class UsesA { def x = new OnlyInA().hi }")
+    pool.size shouldBe 1
+  }
+
+  it should "keep its classes if another one sharing its compiler defines a class with the same name" in {
+    val pool = new CompilerPool(1, () => CompilerPool.defaultSettings())
+    val first = new OnTheFlyCompiler(None, pool)
+    val second = new OnTheFlyCompiler(None, pool)
+    first.compileClass("class Shared { def fromA = 1 }")
+    second.compileClass("class Shared { def fromB = 2 }")
+    first.compileClass("class UsesShared { def x: Int = new Shared().fromA }")
+
+    val clazz = first.findClass("UsesShared").get
+    clazz.getMethod("x").invoke(clazz.getDeclaredConstructor().newInstance()) shouldBe 1
+    second.findClass("Shared").get.getMethod("fromB") should not be null
+  }
+
+  "A pooled compiler" should "keep its Global when it is handed to another owner" in {
+    val pool = new CompilerPool(1, () => CompilerPool.defaultSettings())
+    val first = new OnTheFlyCompiler(None, pool)
+    val second = new OnTheFlyCompiler(None, pool)
+    first.compileClass("class WarmFirst")
+    val global = pool.withCompiler(first)(_.global)
+    second.compileClass("class WarmSecond")
+
+    pool.withCompiler(second)(_.global) should be theSameInstanceAs global
+    pool.size shouldBe 1
+  }
+}
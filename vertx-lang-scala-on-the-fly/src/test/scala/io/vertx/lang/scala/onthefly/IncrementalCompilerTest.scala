@@ -0,0 +1,84 @@
+package io.vertx.lang.scala.onthefly
+
+import java.io.File
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+
+import org.junit.runner.RunWith
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+import org.scalatestplus.junit.JUnitRunner
+
+@RunWith(classOf[JUnitRunner])
+class IncrementalCompilerTest extends AnyFlatSpec with Matchers {
+
+  "Changing a source" should "recompile it and the sources depending on it" in {
+    val dir = Files.createTempDirectory("incremental").toFile
+    val a = write(new File(dir, "IncA.scala"), "class IncA { def value(): String = \"a1\" }")
+    val b = write(new File(dir, "IncB.scala"), "class IncB { def value(): String = new IncA().value() + \"b\" }")
+    val c = write(new File(dir, "IncC.scala"), "class IncC { def value(): String = \"c\" }")
+    val compiler = new IncrementalCompiler()
+    Seq(a, b, c).foreach(f => compiler.add(f.getPath) shouldBe defined)
+    val cBefore = compiler.findClass("IncC").get
+    call(compiler, "IncB") shouldBe "a1b"
+
+    write(a, "class IncA { def value(): String = \"a2\" }")
+    compiler.refresh() shouldBe Set(a.getPath, b.getPath)
+
+    call(compiler, "IncB") shouldBe "a2b"
+    compiler.findClass("IncC").get shouldNot be theSameInstanceAs cBefore
+    call(compiler, "IncC") shouldBe "c"
+  }
+
+  "Touching a source without changing it" should "not recompile anything" in {
+    val dir = Files.createTempDirectory("incremental").toFile
+    val source = write(new File(dir, "Touched.scala"), "class Touched")
+    val compiler = new IncrementalCompiler()
+    compiler.add(source.getPath) shouldBe defined
+    val generation = compiler.generation
+
+    source.setLastModified(source.lastModified() + 2000)
+    compiler.refresh() shouldBe empty
+    compiler.generation shouldBe generation
+  }
+
+  "A broken change" should "keep the previous classes until it is fixed" in {
+    val dir = Files.createTempDirectory("incremental").toFile
+    val source = write(new File(dir, "Fixed.scala"), "class Fixed { def value(): String = \"v1\" }")
+    val compiler = new IncrementalCompiler()
+    compiler.add(source.getPath) shouldBe defined
+
+    write(source, "class Fixed { def value(): String = }")
+    intercept[ClassNotFoundException] {
+      compiler.refresh()
+    }
+    call(compiler, "Fixed") shouldBe "v1"
+
+    write(source, "class Fixed { def value(): String = \"v2\" }")
+    compiler.refresh() shouldBe Set(source.getPath)
+    call(compiler, "Fixed") shouldBe "v2"
+  }
+
+  "Imported sources on the classpath" should "be added as well" in {
+    val compiler = new IncrementalCompiler()
+    val dir = Files.createTempDirectory("incremental").toFile
+    val source = write(new File(dir, "Importing.scala"),
+      "import io.vertx.lang.scala.onthefly.NotCompiled\nclass Importing { def value(): String = new NotCompiled().doStuff() }")
+    compiler.add(source.getPath) shouldBe defined
+    compiler.sources should contain("io/vertx/lang/scala/onthefly/NotCompiled.scala")
+    call(compiler, "Importing") shouldBe "did stuff"
+  }
+
+  private def write(file: File, code: String): File = {
+    val lastModified = file.lastModified()
+    Files.write(file.toPath, code.getBytes(StandardCharsets.UTF_8))
+    // file systems with a coarse timestamp resolution wouldn't notice the change
+    if (lastModified != 0) file.setLastModified(lastModified + 1000)
+    file
+  }
+
+  private def call(compiler: IncrementalCompiler, className: String): Any = {
+    val clazz = compiler.findClass(className).get
+    clazz.getMethod("value").invoke(clazz.getDeclaredConstructor().newInstance())
+  }
+}
@@ -1,6 +1,7 @@
 package io.vertx.lang.scala.onthefly
 
 import java.io.File
+import java.lang.ref.WeakReference
 import java.nio.file.Files
 import org.junit.runner.RunWith
 import org.scalatest.flatspec.AnyFlatSpec
@@ -120,4 +121,79 @@ class OnTheFlyCompilerTest extends AnyFlatSpec with Matchers {
     val inst = clazz.getDeclaredConstructor().newInstance()
     method.invoke(inst) should equal("works2")
   }
+
+  "Evaluating a script again" should "use the cached class" in {
+    val compiler = new OnTheFlyCompiler(None)
+    compiler.eval[Int]("1 + 1") shouldBe 2
+    compiler.eval[Int]("1 + 1") shouldBe 2
+    compiler.scriptCache.stats shouldBe ScriptCacheStats(hits = 1, misses = 1, evictions = 0, size = 1)
+  }
+
+  "The script cache" should "evict the least recently used script" in {
+    val compiler = new OnTheFlyCompiler(None, CompilerPool.shared, 2)
+    compiler.eval[Int]("1")
+    compiler.eval[Int]("2")
+    compiler.eval[Int]("1")
+    compiler.eval[Int]("3")
+    compiler.eval[Int]("2") shouldBe 2
+    compiler.scriptCache.stats shouldBe ScriptCacheStats(hits = 1, misses = 4, evictions = 2, size = 2)
+  }
+
+  "An evicted script" should "be garbage-collected" in {
+    val compiler = new OnTheFlyCompiler(None, CompilerPool.shared, 1)
+    val evicted = new WeakReference[Class[_]](compiler.compileScript("\"evicted\""))
+    compiler.compileScript("\"kept\"")
+
+    var attempts = 0
+    while (evicted.get() != null && attempts < 20) {
+      System.gc()
+      Thread.sleep(50)
+      attempts += 1
+    }
+    evicted.get() shouldBe null
+  }
+
+  "Peeking at a cached script" should "not keep it from being evicted" in {
+    val cache = new ScriptCache(2)
+    cache.put("a", "a")
+    cache.put("b", "b")
+    cache.peek("a") shouldBe Some("a")
+    cache.put("c", "c")
+    cache.peek("a") shouldBe empty
+    cache.get("b") shouldBe Some("b")
+    cache.stats.evictions shouldBe 1
+  }
+
+  "A compiled function" should "evaluate the script on every call" in {
+    val compiler = new OnTheFlyCompiler(None)
+    val next = compiler.compileFunction[AnyRef]("new Object")
+    (1 to 1000).map(_ => next()).distinct should have size 1000
+    compiler.scriptCache.stats.misses shouldBe 1
+  }
+
+  "A compiled function with parameters" should "be applied to its arguments" in {
+    val compiler = new OnTheFlyCompiler(None)
+    val double = compiler.compileFunction[Int, Int]("x", "x * 2")
+    val greet = compiler.compileFunction[String, List[Int], String]("name", "numbers", "s\"$name: ${numbers.sum}\"")
+    double(21) shouldBe 42
+    greet("sum", List(1, 2, 3)) shouldBe "sum: 6"
+  }
+
+  "Functions with the same body but different parameters" should "be compiled separately" in {
+    val compiler = new OnTheFlyCompiler(None)
+    compiler.compileFunction[Int, Any]("x", "x").apply(1) shouldBe 1
+    compiler.compileFunction[String, Any]("x", "x").apply("one") shouldBe "one"
+    compiler.scriptCache.stats.size shouldBe 2
+  }
+
+  "A class with brace imports of uncompiled classes" should "compile them along with the class" in {
+    val compiler = new OnTheFlyCompiler(None)
+    val script = "import io.vertx.lang.scala.onthefly.{NotCompiled, TestClass => Renamed}\n" +
+      "import scala.concurrent._\n" +
+      "class UsesBoth { def doIt(): String = { new Renamed(); new NotCompiled().doStuff() } }"
+    compiler.compileClass(script)
+    val clazz = compiler.findClass("UsesBoth").get
+    clazz.getMethod("doIt").invoke(clazz.getDeclaredConstructor().newInstance()) shouldBe "did stuff"
+    compiler.findClass("io.vertx.lang.scala.onthefly.TestClass") shouldBe defined
+  }
 }
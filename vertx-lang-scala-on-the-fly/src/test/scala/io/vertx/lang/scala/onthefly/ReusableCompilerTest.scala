@@ -0,0 +1,77 @@
+package io.vertx.lang.scala.onthefly
+
+import org.junit.runner.RunWith
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+import org.scalatestplus.junit.JUnitRunner
+
+import scala.collection.mutable
+import scala.reflect.internal.util.BatchSourceFile
+import scala.tools.nsc.io.VirtualDirectory
+
+@RunWith(classOf[JUnitRunner])
+class ReusableCompilerTest extends AnyFlatSpec with Matchers {
+
+  "A successful run" should "report the time of each phase and source" in {
+    val compiler = ReusableCompiler(CompilerPool.defaultSettings())
+    val result = compiler.compileSources(List(
+      new BatchSourceFile("First.scala", "class First"),
+      new BatchSourceFile("Second.scala", "class Second extends First")
+    ), new VirtualDirectory("(memory)", None))
+
+    result.hasErrors shouldBe false
+    result.phaseDurations.map(_._1) should contain inOrder ("parser", "typer", "jvm")
+    result.fileDurations.keySet shouldBe Set("First.scala", "Second.scala")
+    result.phaseDurations.map(_._2).reduce(_ + _) should be <= result.duration
+  }
+
+  "A failing run" should "capture the errors with their position" in {
+    val compiler = ReusableCompiler(CompilerPool.defaultSettings())
+    val result = compiler.tryCompileSources(List(
+      new BatchSourceFile("Broken.scala", "class Broken {\n  def doIt(): Int = \"no int\"\n}")
+    ), new VirtualDirectory("(memory)", None))
+
+    result.hasErrors shouldBe true
+    val error = result.errors.head
+    error.source shouldBe Some("Broken.scala")
+    error.line shouldBe 2
+    error.message should include("type mismatch")
+  }
+
+  it should "throw a CompilationException containing the first error" in {
+    val compiler = ReusableCompiler(CompilerPool.defaultSettings())
+    val exception = intercept[CompilationException] {
+      compiler.compileSources(List(new BatchSourceFile("Broken.scala", "class Broken extends Missing")),
+        new VirtualDirectory("(memory)", None))
+    }
+    exception.getMessage should include("Broken.scala:1")
+    exception.result.errors should have size 1
+
+    compiler.compileSources(List(new BatchSourceFile("Fixed.scala", "class Fixed")),
+      new VirtualDirectory("(memory)", None)).diagnostics shouldBe empty
+  }
+
+  "Compiling into another output directory" should "leave the output directory of the settings alone" in {
+    val settings = CompilerPool.defaultSettings()
+    val own = new VirtualDirectory("(own)", None)
+    settings.outputDirs.setSingleOutput(own)
+    val compiler = ReusableCompiler(settings)
+    val other = new VirtualDirectory("(other)", None)
+    compiler.compileSources(List(new BatchSourceFile("Elsewhere.scala", "class Elsewhere")), other)
+    compiler.compileSources(List(new BatchSourceFile("Here.scala", "class Here")))
+
+    other.lookupName("Elsewhere.class", directory = false) should not be null
+    other.lookupName("Here.class", directory = false) shouldBe null
+    own.lookupName("Here.class", directory = false) should not be null
+  }
+
+  "The listeners of a pool" should "be notified about runs of all its compilers" in {
+    val pool = new CompilerPool(1, () => CompilerPool.defaultSettings())
+    val results = mutable.ArrayBuffer[CompilationResult]()
+    pool.addListener(results += _)
+    new OnTheFlyCompiler(None, pool).compileClass("class Listened")
+
+    results should have size 1
+    results.head.sources shouldBe Seq("(inline)")
+  }
+}
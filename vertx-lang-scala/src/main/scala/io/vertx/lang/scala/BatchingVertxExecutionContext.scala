@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.lang.scala
+
+import java.util
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicBoolean
+
+import io.vertx.core.{Context, Handler, Vertx}
+import io.vertx.lang.scala.metrics.ExecutionContextMetrics
+
+import scala.util.control.NonFatal
+
+/**
+  * A [[VertxExecutionContext]] that batches Runnables instead of hopping onto the [[io.vertx.core.Context]] once per
+  * Runnable.
+  *
+  * Runnables submitted from outside the context are put into a queue and drained by a single `runOnContext`-task,
+  * so a chain of callbacks completed from a worker thread costs one event-loop task instead of one per callback.
+  * Runnables submitted while already running on the context are trampolined: they are appended to a local queue and
+  * run after the current Runnable returns, so long chains of callbacks can't blow the stack.
+  *
+  * A single drain pass runs at most `maxBatchSize` Runnables, after which the remaining work is rescheduled to give
+  * other tasks on the event loop a chance to run.
+  *
+  * @param maxBatchSize maximum number of Runnables executed in one pass before yielding back to the event loop
+  * @param metrics records how Runnables get executed, Runnables drained from the queue count as scheduled
+  */
+class BatchingVertxExecutionContext(vertx: Vertx, ctx: Context, val maxBatchSize: Int, metrics: ExecutionContextMetrics)
+  extends VertxExecutionContext(vertx, ctx, metrics) {
+
+  def this(vertx: Vertx, ctx: Context, maxBatchSize: Int) = this(vertx, ctx, maxBatchSize, ExecutionContextMetrics.Disabled)
+
+  require(maxBatchSize > 0, "maxBatchSize must be greater than 0")
+
+  // Filled from any thread, drained on the context
+  private val pending = new ConcurrentLinkedQueue[Runnable]()
+  private val drainScheduled = new AtomicBoolean(false)
+
+  // Only ever touched from the context
+  private val trampoline = new util.ArrayDeque[Runnable]()
+  private var running = false
+
+  private val drainHandler: Handler[Void] = _ => drain()
+
+  override def execute(runnable: Runnable): Unit = {
+    if (Vertx.currentContext() eq ctx) {
+      if (running) {
+        trampoline.addLast(measured(runnable, inline = true))
+      } else {
+        running = true
+        try {
+          runSafely(measured(runnable, inline = true))
+          runTrampoline(maxBatchSize - 1)
+        } finally {
+          running = false
+        }
+        if (!trampoline.isEmpty) {
+          scheduleDrain()
+        }
+      }
+    } else {
+      pending.offer(measured(runnable, inline = false))
+      scheduleDrain()
+    }
+  }
+
+  private def measured(runnable: Runnable, inline: Boolean): Runnable = {
+    if (metrics.isEnabled) {
+      val queued = System.nanoTime()
+      () => runMeasured(runnable, inline, queued)
+    } else {
+      runnable
+    }
+  }
+
+  private def scheduleDrain(): Unit = {
+    if (drainScheduled.compareAndSet(false, true)) {
+      ctx.runOnContext(drainHandler)
+    }
+  }
+
+  private def drain(): Unit = {
+    drainScheduled.set(false)
+    running = true
+    try {
+      var budget = runTrampoline(maxBatchSize)
+      while (budget > 0 && !pending.isEmpty) {
+        runSafely(pending.poll())
+        budget = runTrampoline(budget - 1)
+      }
+    } finally {
+      running = false
+    }
+    if (!trampoline.isEmpty || !pending.isEmpty) {
+      scheduleDrain()
+    }
+  }
+
+  /**
+    * Runs queued Runnables until either the local queue is empty or the budget is used up.
+    *
+    * @return the remaining budget
+    */
+  private def runTrampoline(budget: Int): Int = {
+    var remaining = budget
+    while (remaining > 0 && !trampoline.isEmpty) {
+      runSafely(trampoline.pollFirst())
+      remaining -= 1
+    }
+    remaining
+  }
+
+  private def runSafely(runnable: Runnable): Unit = {
+    try {
+      runnable.run()
+    } catch {
+      case NonFatal(t) => reportFailure(t)
+    }
+  }
+}
+
+object BatchingVertxExecutionContext {
+  val DefaultMaxBatchSize = 1024
+
+  def apply(vertx: Vertx, ctx: Context, maxBatchSize: Int = DefaultMaxBatchSize,
+            metrics: ExecutionContextMetrics = ExecutionContextMetrics.Disabled): BatchingVertxExecutionContext =
+    new BatchingVertxExecutionContext(vertx, ctx, maxBatchSize, metrics)
+}
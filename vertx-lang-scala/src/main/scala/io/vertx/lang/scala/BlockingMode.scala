@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.lang.scala
+
+import java.util.concurrent.{ExecutorService, Executors}
+
+import io.vertx.core.Context
+
+import scala.concurrent.Promise
+import scala.util.Try
+
+/**
+  * Decides where the blocking code passed to `executeBlockingScala`/`executeBlockingFuture` runs.
+  *
+  * The mode is picked up as an implicit, so it can be selected per call by passing it explicitly or for a whole
+  * verticle by overriding [[ScalaVerticle#blockingMode]].
+  */
+sealed trait BlockingMode
+
+object BlockingMode {
+
+  /**
+    * Runs blocking code on the worker pool of Vert.x (the default).
+    */
+  case object WorkerPool extends BlockingMode
+
+  /**
+    * Runs blocking code on a new virtual thread, the result is handed back to the calling context.
+    * The `ordered`-flag is ignored in this mode.
+    *
+    * Requires a JDK with virtual threads (21+), on older JDKs the worker pool is used instead.
+    */
+  case object VirtualThread extends BlockingMode
+}
+
+/**
+  * Access to the virtual thread executor of the running JDK, looked up reflectively to stay compatible with
+  * JDKs that don't have virtual threads.
+  */
+object VirtualThreads {
+
+  private lazy val executor: Option[ExecutorService] = Try(
+    classOf[Executors].getMethod("newVirtualThreadPerTaskExecutor").invoke(null).asInstanceOf[ExecutorService]
+  ).toOption
+
+  /**
+    * @return true if the running JDK supports virtual threads
+    */
+  def isSupported: Boolean = executor.isDefined
+
+  /**
+    * Runs the blocking function on a new virtual thread.
+    *
+    * @param blockingFunction function containing blocking code
+    * @param ctx the context the returned Future is completed on, if null it is completed on the virtual thread
+    * @return a Future representing the result of the blocking operation
+    */
+  def executeBlocking[T](blockingFunction: () => T, ctx: Context): concurrent.Future[T] = {
+    val promise = Promise[T]()
+    executor
+      .getOrElse(throw new UnsupportedOperationException("Virtual threads are not supported by this JDK"))
+      .execute(() => {
+        val result = Try(blockingFunction())
+        if (ctx == null) promise.complete(result) else ctx.runOnContext(_ => promise.complete(result))
+      })
+    promise.future
+  }
+}
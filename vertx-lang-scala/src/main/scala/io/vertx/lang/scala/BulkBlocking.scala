@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.lang.scala
+
+import java.util
+import java.util.concurrent.atomic.AtomicInteger
+
+import io.vertx.core.streams.ReadStream
+import io.vertx.core.{Context, Handler}
+
+import scala.collection.immutable.ArraySeq
+import scala.concurrent.Promise
+import scala.util.control.NonFatal
+
+/**
+  * Runs a batch of blocking functions with bounded parallelism.
+  *
+  * Instead of one worker submission and one Promise per function, at most `parallelism` workers are submitted and
+  * each of them keeps pulling the next function until the batch is done.
+  *
+  * Used by the `executeBlockingAll`/`executeBlockingStream` extensions of `Vertx`, `Context` and `WorkerExecutor`.
+  */
+object BulkBlocking {
+
+  /**
+    * Runs all functions and collects their results in the order of the functions.
+    * The first failing function fails the returned Future, functions that haven't started by then are skipped.
+    *
+    * @param functions   the blocking functions
+    * @param parallelism maximum number of functions running at the same time
+    * @param ctx         the context the returned Future is completed on, if null it is completed on a worker thread
+    * @param submit      submits a worker to the worker pool
+    */
+  def all[T](functions: Iterable[() => T], parallelism: Int, ctx: Context, submit: (() => Unit) => Unit): concurrent.Future[Seq[T]] = {
+    require(parallelism > 0, "parallelism must be greater than 0")
+    val tasks = functions.toIndexedSeq
+    val results = new Array[Any](tasks.size)
+    val promise = Promise[Seq[T]]()
+    val next = new AtomicInteger(0)
+    val workers = math.min(parallelism, tasks.size)
+    val remainingWorkers = new AtomicInteger(workers)
+
+    def complete(): Unit = promise.trySuccess(ArraySeq.unsafeWrapArray(results).asInstanceOf[Seq[T]])
+
+    def fail(t: Throwable): Unit = {
+      next.set(tasks.size)
+      if (ctx == null) promise.tryFailure(t) else ctx.runOnContext(_ => promise.tryFailure(t))
+    }
+
+    val worker = () => {
+      var i = next.getAndIncrement()
+      while (i < tasks.size) {
+        try {
+          results(i) = tasks(i)()
+          i = next.getAndIncrement()
+        } catch {
+          case NonFatal(t) =>
+            i = tasks.size
+            fail(t)
+        }
+      }
+      if (remainingWorkers.decrementAndGet() == 0) {
+        if (ctx == null) complete() else ctx.runOnContext(_ => complete())
+      }
+    }
+
+    if (workers == 0) {
+      complete()
+    } else {
+      (1 to workers).foreach(_ => submit(worker))
+    }
+    promise.future
+  }
+
+  /**
+    * Runs all functions and emits their results in completion order. Workers stop pulling new functions while
+    * `bufferSize` results haven't been consumed yet, so a paused stream also pauses the batch.
+    *
+    * @param functions   the blocking functions
+    * @param parallelism maximum number of functions running at the same time
+    * @param bufferSize  maximum number of results waiting to be consumed before the workers stop
+    * @param ctx         the context the results are emitted on
+    * @param submit      submits a worker to the worker pool
+    */
+  def stream[T](functions: Iterable[() => T], parallelism: Int, bufferSize: Int, ctx: Context, submit: (() => Unit) => Unit): ReadStream[T] = {
+    require(ctx != null, "Streaming blocking results requires a Vert.x context")
+    new BlockingResultStream[T](functions.toIndexedSeq, parallelism, bufferSize, ctx, submit)
+  }
+}
+
+/**
+  * [[io.vertx.core.streams.ReadStream]] of the results of a batch of blocking functions, see [[BulkBlocking.stream]].
+  *
+  * The methods of this stream have to be called from the context it was created for.
+  */
+class BlockingResultStream[T] private[scala](tasks: IndexedSeq[() => T], parallelism: Int, bufferSize: Int,
+                                             ctx: Context, submit: (() => Unit) => Unit) extends ReadStream[T] {
+
+  require(parallelism > 0, "parallelism must be greater than 0")
+  require(bufferSize > 0, "bufferSize must be greater than 0")
+
+  // Shared with the workers
+  private val next = new AtomicInteger(0)
+  private val buffered = new AtomicInteger(0)
+
+  // Only ever touched from the context
+  private val buffer = new util.ArrayDeque[T]()
+  private var demand = Long.MaxValue
+  private var activeWorkers = 0
+  private var handler: Handler[T] = _
+  private var exceptionHandler: Handler[Throwable] = _
+  private var endHandler: Handler[Void] = _
+  private var failed = false
+  private var ended = false
+
+  override def handler(handler: Handler[T]): ReadStream[T] = {
+    this.handler = handler
+    if (handler != null) {
+      emit()
+    }
+    this
+  }
+
+  override def exceptionHandler(handler: Handler[Throwable]): ReadStream[T] = {
+    this.exceptionHandler = handler
+    this
+  }
+
+  override def endHandler(endHandler: Handler[Void]): ReadStream[T] = {
+    this.endHandler = endHandler
+    this
+  }
+
+  override def pause(): ReadStream[T] = {
+    demand = 0
+    this
+  }
+
+  override def resume(): ReadStream[T] = fetch(Long.MaxValue)
+
+  override def fetch(amount: Long): ReadStream[T] = {
+    require(amount >= 0, "amount must be positive")
+    demand += amount
+    if (demand < 0) {
+      demand = Long.MaxValue
+    }
+    emit()
+    this
+  }
+
+  private def emit(): Unit = {
+    while (handler != null && demand > 0 && !buffer.isEmpty) {
+      if (demand != Long.MaxValue) {
+        demand -= 1
+      }
+      val result = buffer.pollFirst()
+      buffered.decrementAndGet()
+      handler.handle(result)
+    }
+    if (handler != null && !failed) {
+      startWorkers()
+      if (!ended && activeWorkers == 0 && buffer.isEmpty && next.get() >= tasks.size) {
+        ended = true
+        if (endHandler != null) {
+          endHandler.handle(null)
+        }
+      }
+    }
+  }
+
+  private def startWorkers(): Unit = {
+    while (activeWorkers < parallelism && next.get() < tasks.size && buffered.get() < bufferSize) {
+      activeWorkers += 1
+      submit(() => work())
+    }
+  }
+
+  /**
+    * Runs on a worker thread, pulls functions until there are none left or the buffer is full.
+    */
+  private def work(): Unit = {
+    var continue = true
+    while (continue && buffered.get() < bufferSize) {
+      val i = next.getAndIncrement()
+      if (i >= tasks.size) {
+        continue = false
+      } else {
+        try {
+          val result = tasks(i)()
+          buffered.incrementAndGet()
+          ctx.runOnContext(_ => {
+            buffer.addLast(result)
+            emit()
+          })
+        } catch {
+          case NonFatal(t) =>
+            continue = false
+            next.set(tasks.size)
+            ctx.runOnContext(_ => fail(t))
+        }
+      }
+    }
+    ctx.runOnContext(_ => {
+      activeWorkers -= 1
+      emit()
+    })
+  }
+
+  private def fail(t: Throwable): Unit = {
+    if (!failed) {
+      failed = true
+      if (exceptionHandler != null) {
+        exceptionHandler.handle(t)
+      }
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.lang.scala
+
+import scala.collection.mutable
+import scala.reflect.macros.blackbox
+
+/**
+  * The type analysis shared by the derivation of [[io.vertx.lang.scala.json.JsonCodec]]s and
+  * [[io.vertx.lang.scala.eventbus.BinaryCodec]]s.
+  *
+  * Finds the fields of case classes and the members of sealed traits, and the implicit codecs the derived codec
+  * needs. Types without an implicit codec that can be derived get one as an implicit member of the generated codec,
+  * so codecs of recursive types can refer to each other. Implementations only generate the reading and writing.
+  */
+private[scala] trait CodecMacros {
+
+  val c: blackbox.Context
+
+  import c.universe._
+
+  /**
+    * The name of the codec type in error messages, e.g. `JsonCodec`.
+    */
+  protected def codecName: String
+
+  /**
+    * The companion of the codec type, providing `derived`.
+    */
+  protected def codecs: Tree
+
+  protected def codecType: Tree
+
+  protected def codecConstructor: Type
+
+  protected def caseObjectCodec(tpe: Type, module: Symbol): Tree
+
+  /**
+    * @param locals the implicit members to put into the codec, see [[derivedMembers]]
+    */
+  protected def caseClassCodec(tpe: Type, fields: Seq[Field], locals: Seq[Tree]): Tree
+
+  /**
+    * @param members the members, sorted by name
+    * @param locals  the implicit members to put into the codec, see [[derivedMembers]]
+    */
+  protected def sealedCodec(tpe: Type, members: Seq[Field], locals: Seq[Tree]): Tree
+
+  /**
+    * A field of a case class or a member of a sealed trait.
+    *
+    * @param name  the name of the field, a fresh name for members
+    * @param label the name of the field or member as it is written
+    * @param tpe   the type of the field or member
+    * @param codec the name of the lazy val holding the codec, see [[codecVals]]
+    */
+  protected case class Field(name: TermName, label: String, tpe: Type, codec: TermName)
+
+  def derive[T: c.WeakTypeTag]: Tree = {
+    val tpe = weakTypeOf[T].dealias
+    val sym = tpe.typeSymbol
+    if (sym.isModuleClass) {
+      caseObjectCodec(tpe, sym.asClass.module)
+    } else if (sym.isClass && sym.asClass.isCaseClass) {
+      val fields = caseClassFields(tpe)
+      caseClassCodec(tpe, fields, derivedMembers(tpe, fields.map(_.tpe)))
+    } else if (sym.isClass && sym.asClass.isSealed) {
+      val members = sealedMembers(tpe)
+      sealedCodec(tpe, members, derivedMembers(tpe, members.map(_.tpe)))
+    } else {
+      c.abort(c.enclosingPosition,
+        s"Unable to derive a $codecName for $tpe, only case classes, case objects and sealed traits are supported")
+    }
+  }
+
+  /**
+    * The lazy vals holding the codecs of the fields or members.
+    */
+  protected def codecVals(fields: Seq[Field]): Seq[Tree] =
+    fields.map(f => q"private[this] lazy val ${f.codec}: $codecType[${f.tpe}] = _root_.scala.Predef.implicitly[$codecType[${f.tpe}]]")
+
+  private def caseClassFields(tpe: Type): Seq[Field] = {
+    val sym = tpe.typeSymbol.asClass
+    val constructor = tpe.decls.collectFirst { case m: MethodSymbol if m.isPrimaryConstructor => m }
+      .getOrElse(c.abort(c.enclosingPosition, s"$tpe has no primary constructor"))
+    constructor.paramLists.headOption.getOrElse(Nil).map { param =>
+      val fieldType = param.typeSignature.substituteTypes(sym.typeParams, tpe.typeArgs).dealias
+      Field(param.name.toTermName, param.name.decodedName.toString, fieldType, TermName(c.freshName("codec")))
+    }
+  }
+
+  private def sealedMembers(tpe: Type): Seq[Field] = {
+    val sym = tpe.typeSymbol.asClass
+    if (sym.typeParams.nonEmpty) {
+      c.abort(c.enclosingPosition, s"Unable to derive a $codecName for $tpe, generic sealed types are not supported")
+    }
+    val members = sym.knownDirectSubclasses.toList.sortBy(_.name.decodedName.toString).map { sub =>
+      val subType = if (sub.isModuleClass) sub.asClass.module.typeSignature else sub.asType.toType
+      if (sub.asClass.typeParams.nonEmpty) {
+        c.abort(c.enclosingPosition, s"Unable to derive a $codecName for $tpe, its member $sub is generic")
+      }
+      Field(TermName(c.freshName("member")), sub.name.decodedName.toString, subType, TermName(c.freshName("codec")))
+    }
+    if (members.isEmpty) {
+      c.abort(c.enclosingPosition,
+        s"Unable to derive a $codecName for $tpe, it has no known subclasses. Are they defined after the codec?")
+    }
+    members
+  }
+
+  /**
+    * Implicit codecs for the types the codec of `root` depends on and that have no implicit codec yet. Type arguments
+    * are searched as well, e.g. `Address` for a field of type `Option[List[Address]]`.
+    */
+  private def derivedMembers(root: Type, types: Seq[Type]): Seq[Tree] = {
+    val missing = mutable.ListBuffer[Type]()
+
+    def visit(tpe: Type): Unit = {
+      val t = tpe.dealias
+      if (!missing.exists(_ =:= t) && c.inferImplicitValue(codecOf(t), silent = true).isEmpty) {
+        if (t =:= root || (derivable(t) && !t.typeSymbol.fullName.startsWith("scala."))) {
+          missing += t
+        } else if (t.typeArgs.nonEmpty) {
+          t.typeArgs.foreach(visit)
+        } else {
+          c.abort(c.enclosingPosition, s"Unable to derive a $codecName for $root, there is no implicit $codecName[$t]")
+        }
+      }
+    }
+
+    types.foreach(visit)
+    missing.toList.map { t =>
+      val name = TermName(c.freshName("derived"))
+      if (t =:= root) q"implicit lazy val $name: $codecType[$t] = this"
+      else q"implicit lazy val $name: $codecType[$t] = $codecs.derived[$t]"
+    }
+  }
+
+  private def derivable(tpe: Type): Boolean = {
+    val sym = tpe.typeSymbol
+    sym.isClass && (sym.isModuleClass || sym.asClass.isCaseClass || sym.asClass.isSealed)
+  }
+
+  private def codecOf(tpe: Type): Type = appliedType(codecConstructor, tpe)
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.lang.scala
+
+import java.util
+import java.util.concurrent.RejectedExecutionException
+
+import io.vertx.core.{AsyncResult, Context, Handler, Vertx, VertxOptions}
+
+import scala.concurrent.Promise
+import scala.util.{Failure, Success, Try}
+
+/**
+  * Executes blocking code on the worker pool, keeping the order of executions that share a key.
+  *
+  * `executeBlockingScala(..., ordered = true)` serializes all blocking code of a context, `ordered = false` gives no
+  * ordering at all. This executor sits in between: calls with the same key (e.g. an account id) run one after
+  * another in the order they were submitted, calls with different keys run in parallel.
+  *
+  * Keys waiting for a free slot are served round-robin, so a single busy key can't starve the others.
+  *
+  * @param vertx             the Vert.x instance whose worker pool is used
+  * @param parallelism       maximum number of blocking calls running at the same time
+  * @param maxInFlightPerKey maximum number of queued and running calls per key, further calls for that key fail with a
+  *                          [[java.util.concurrent.RejectedExecutionException]]
+  * @param maxInFlight       maximum number of queued and running calls in total, further calls fail with a
+  *                          [[java.util.concurrent.RejectedExecutionException]]
+  */
+class KeyedBlockingExecutor(vertx: Vertx, val parallelism: Int, val maxInFlightPerKey: Int, val maxInFlight: Int) {
+
+  require(parallelism > 0, "parallelism must be greater than 0")
+  require(maxInFlightPerKey > 0, "maxInFlightPerKey must be greater than 0")
+  require(maxInFlight > 0, "maxInFlight must be greater than 0")
+
+  private abstract class Task {
+    def start(): Unit
+  }
+
+  private final class KeyQueue(val key: Any) {
+    val waiting = new util.ArrayDeque[Task]()
+    var inFlight = 0
+  }
+
+  // All state is guarded by this
+  private val queues = new util.HashMap[Any, KeyQueue]()
+  private val ready = new util.ArrayDeque[KeyQueue]()
+  private var running = 0
+  private var inFlight = 0
+
+  /**
+    * Safely execute some blocking code, after all previously submitted calls with the same key are done.
+    *
+    * @param key              calls with the same key are executed in order
+    * @param blockingFunction function containing blocking code
+    * @return a Future representing the result of the blocking operation, completed on the calling context
+    */
+  def executeBlocking[T](key: Any, blockingFunction: () => T): concurrent.Future[T] = {
+    val ctx = vertx.getOrCreateContext()
+    val promise = Promise[T]()
+    val started = synchronized {
+      val queue = queues.computeIfAbsent(key, k => new KeyQueue(k))
+      if (queue.inFlight >= maxInFlightPerKey) {
+        promise.failure(new RejectedExecutionException(s"Too many blocking calls in flight for key $key"))
+      } else if (inFlight >= maxInFlight) {
+        promise.failure(new RejectedExecutionException("Too many blocking calls in flight"))
+      } else {
+        queue.waiting.addLast(newTask(queue, ctx, blockingFunction, promise))
+        queue.inFlight += 1
+        inFlight += 1
+        // a key with a running or waiting call is already in line
+        if (queue.inFlight == 1) {
+          ready.addLast(queue)
+        }
+      }
+      if (queue.inFlight == 0) {
+        queues.remove(key)
+      }
+      nextTasks()
+    }
+    started.foreach(_.start())
+    promise.future
+  }
+
+  /**
+    * @return number of calls that are either queued or running
+    */
+  def inFlightCount: Int = synchronized(inFlight)
+
+  private def newTask[T](queue: KeyQueue, ctx: Context, blockingFunction: () => T, promise: Promise[T]): Task =
+    new Task {
+      override def start(): Unit = {
+        val h: Handler[io.vertx.core.Promise[T]] = { f =>
+          val result = Try(blockingFunction())
+          finished(queue)
+          result match {
+            case Success(s) => f.complete(s)
+            case Failure(t) => f.fail(t)
+          }
+        }
+        ctx.executeBlocking[T](h, false, { ar: AsyncResult[T] =>
+          if (ar.succeeded()) promise.success(ar.result()) else promise.failure(ar.cause())
+          ()
+        })
+      }
+    }
+
+  private def finished(queue: KeyQueue): Unit = {
+    val started = synchronized {
+      running -= 1
+      inFlight -= 1
+      queue.inFlight -= 1
+      if (queue.inFlight == 0) {
+        queues.remove(queue.key)
+      } else {
+        ready.addLast(queue)
+      }
+      nextTasks()
+    }
+    started.foreach(_.start())
+  }
+
+  /**
+    * Takes the next call of each ready key as long as there are free slots. Must be called while holding the lock,
+    * the returned tasks must be started after releasing it.
+    */
+  private def nextTasks(): List[Task] = {
+    var started: List[Task] = Nil
+    while (running < parallelism && !ready.isEmpty) {
+      running += 1
+      started = ready.pollFirst().waiting.pollFirst() :: started
+    }
+    started
+  }
+}
+
+object KeyedBlockingExecutor {
+  def apply(vertx: Vertx, parallelism: Int = VertxOptions.DEFAULT_WORKER_POOL_SIZE, maxInFlightPerKey: Int = Int.MaxValue,
+            maxInFlight: Int = Int.MaxValue): KeyedBlockingExecutor =
+    new KeyedBlockingExecutor(vertx, parallelism, maxInFlightPerKey, maxInFlight)
+}
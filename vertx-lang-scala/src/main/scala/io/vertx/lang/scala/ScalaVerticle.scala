@@ -36,6 +36,12 @@ abstract class ScalaVerticle {
   protected var ctx: Context = _
   private var javaVerticle: AbstractVerticle = _
 
+  /**
+    * Where blocking code passed to `executeBlockingScala` runs when called from this verticle.
+    * Override with [[BlockingMode.VirtualThread]] to use virtual threads instead of the worker pool.
+    */
+  protected implicit def blockingMode: BlockingMode = BlockingMode.WorkerPool
+
   /**
     * Initialise the verticle.<p>
     * This is called by Vert.x when the verticle instance is deployed. Don't call it yourself.
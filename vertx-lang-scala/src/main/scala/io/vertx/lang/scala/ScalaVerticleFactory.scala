@@ -20,11 +20,14 @@ import java.util.concurrent.Callable
 
 import io.vertx.core.{Promise, Verticle, Vertx}
 import io.vertx.core.spi.VerticleFactory
-import io.vertx.lang.scala.onthefly.OnTheFlyCompiler
+import io.vertx.lang.scala.onthefly.CompiledSourceCache
 
 /**
  * Factory for creating Verticle-Instances from a compiled class or scala source code.
  *
+ * Classes compiled from source are cached by the hash of the source, see [[CompiledSourceCache]]. Set the system
+ * property `vertx.scala.compiledSourceDir` to keep them across restarts.
+ *
  * @author <a href="mailto:jochen@codepitbull.de">Jochen Mader</a
  * @author <a href="http://www.campudus.com/">Joern Bernhardt</a>
  */
@@ -51,8 +54,7 @@ class ScalaVerticleFactory extends VerticleFactory {
     }
 
   private def verticleFromSource(verticleName: String, classLoader: ClassLoader): Verticle = {
-    val compiler = new OnTheFlyCompiler(None)
-    compiler.tryToCompileClass(verticleName) match {
+    CompiledSourceCache.shared.findClass(VerticleFactory.removePrefix(verticleName), classLoader) match {
       case Some(clazz) => clazz.getDeclaredConstructor().newInstance().asInstanceOf[ScalaVerticle].asJava()
       case None        => throw new RuntimeException(s"Failed to compile $verticleName")
     }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.lang.scala
+
+import java.util.concurrent.atomic.AtomicBoolean
+
+import io.vertx.core.spi.VerticleFactory
+import io.vertx.core.{DeploymentOptions, Vertx}
+import io.vertx.lang.scala.onthefly.IncrementalCompiler
+
+import scala.collection.mutable
+import scala.concurrent.ExecutionContext
+
+/**
+  * Deploys [[ScalaVerticle]]s from scala-files and redeploys them when their source, or the source of a class they
+  * depend on, changes.
+  *
+  * Sources are compiled by an [[io.vertx.lang.scala.onthefly.IncrementalCompiler]], so a change only recompiles the
+  * changed file and the files depending on it. Only the deployments of recompiled files are redeployed: they are
+  * undeployed and deployed again with the same options, getting a new deployment ID.
+  *
+  * {{{
+  * val reloader = new ScalaVerticleReloader(vertx)
+  * reloader.deploy("scala:src/main/scala/MyVerticle.scala")
+  * reloader.watch(1000)
+  * }}}
+  */
+class ScalaVerticleReloader(vertx: Vertx, compiler: IncrementalCompiler) {
+
+  def this(vertx: Vertx) = this(vertx, new IncrementalCompiler())
+
+  private final class Deployment(val sourceName: String, val className: String, val options: DeploymentOptions,
+                                 var deploymentID: String)
+
+  // Guarded by this
+  private val deployments = mutable.ArrayBuffer[Deployment]()
+
+  private val reloading = new AtomicBoolean(false)
+
+  // Callbacks only hand over results, they can run on whatever thread completes the Future
+  private implicit val ec: ExecutionContext = ExecutionContext.parasitic
+
+  /**
+    * Compiles the scala-file and deploys the verticle defined in it.
+    *
+    * @param verticleName path to a scala-file, either on the file system or on the classpath, optionally prefixed
+    *                     with `scala:`
+    * @return the deployment ID
+    */
+  def deploy(verticleName: String, options: DeploymentOptions = new DeploymentOptions()): concurrent.Future[String] = {
+    val sourceName = VerticleFactory.removePrefix(verticleName)
+    vertx.executeBlockingScala(() => compiler.add(sourceName)
+      .getOrElse(throw new ClassNotFoundException(s"Failed to compile $verticleName")).getName)
+      .flatMap(className => start(className, options).map { deploymentID =>
+        synchronized(deployments += new Deployment(sourceName, className, options, deploymentID))
+        deploymentID
+      })
+  }
+
+  /**
+    * Undeploys a deployment created by this reloader and stops tracking it.
+    */
+  def undeploy(deploymentID: String): concurrent.Future[Unit] = {
+    synchronized(deployments.filterInPlace(_.deploymentID != deploymentID))
+    vertx.undeploy(deploymentID).asScala().map(_ => ())
+  }
+
+  /**
+    * Recompiles changed sources and redeploys the verticles affected by the change.
+    *
+    * @return the new deployment ID for each redeployed deployment ID
+    */
+  def reload(): concurrent.Future[Map[String, String]] =
+    vertx.executeBlockingScala(() => compiler.refresh()).flatMap { recompiled =>
+      val affected = synchronized(deployments.filter(d => recompiled(d.sourceName)).toSeq)
+      concurrent.Future.sequence(affected.map(redeploy)).map(_.toMap)
+    }
+
+  /**
+    * Calls [[reload]] periodically, skipping a tick if the previous reload isn't done yet.
+    *
+    * @param interval the interval in milliseconds
+    * @return the ID of the timer, cancel it to stop watching
+    */
+  def watch(interval: Long): Long =
+    vertx.setPeriodic(interval, _ => {
+      if (reloading.compareAndSet(false, true)) {
+        reload().onComplete(_ => reloading.set(false))
+      }
+    })
+
+  /**
+    * @return the IDs of all deployments tracked by this reloader
+    */
+  def deploymentIDs: Seq[String] = synchronized(deployments.map(_.deploymentID).toSeq)
+
+  private def redeploy(deployment: Deployment): concurrent.Future[(String, String)] = {
+    val previous = deployment.deploymentID
+    vertx.undeploy(previous).asScala()
+      .flatMap(_ => start(deployment.className, deployment.options))
+      .map { deploymentID =>
+        synchronized(deployment.deploymentID = deploymentID)
+        previous -> deploymentID
+      }
+  }
+
+  private def start(className: String, options: DeploymentOptions): concurrent.Future[String] = {
+    val clazz = compiler.findClass(className).getOrElse(throw new ClassNotFoundException(className))
+    VerticleDeployment.deploy(vertx, () => clazz.getDeclaredConstructor().newInstance().asInstanceOf[ScalaVerticle],
+      options, options.getInstances).map(_.deploymentID)
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.lang.scala
+
+import io.vertx.core.{AsyncResult, Future => JFuture}
+import io.vertx.lang.scala.conv.{ScalaFuture, vertxFutureToScalaFuture}
+
+import scala.util.{Failure, Success, Try}
+
+/**
+  * A Scala-facing view on a [[io.vertx.core.Future]].
+  *
+  * Unlike a [[scala.concurrent.Future]] it doesn't need an [[scala.concurrent.ExecutionContext]]: all combinators
+  * delegate to the underlying Vert.x-Future, so callbacks run inline when the Future completes, on the context it
+  * belongs to. Being a value class, wrapping and unwrapping doesn't allocate.
+  *
+  * {{{
+  * for {
+  *   server <- VFuture(vertx.createHttpServer().requestHandler(handler).listen(8080))
+  *   id     <- VFuture(vertx.deployVerticle("scala:my.Verticle"))
+  * } yield (server.actualPort(), id)
+  * }}}
+  */
+final class VFuture[T](val asJava: JFuture[T]) extends AnyVal {
+
+  def isCompleted: Boolean = asJava.isComplete
+
+  /**
+    * The current value of this Future, `None` if it isn't completed yet.
+    */
+  def value: Option[Try[T]] =
+    if (!asJava.isComplete) None
+    else if (asJava.succeeded()) Some(Success(asJava.result()))
+    else Some(Failure(asJava.cause()))
+
+  def map[U](f: T => U): VFuture[U] =
+    new VFuture(mapped(asJava, f))
+
+  def flatMap[U](f: T => VFuture[U]): VFuture[U] =
+    new VFuture(asJava.compose[U]((t: T) => f(t).asJava))
+
+  def filter(p: T => Boolean): VFuture[T] =
+    new VFuture(asJava.compose[T]((t: T) =>
+      if (p(t)) asJava
+      else JFuture.failedFuture[T](new NoSuchElementException("VFuture.filter predicate is not satisfied"))))
+
+  def withFilter(p: T => Boolean): VFuture[T] = filter(p)
+
+  def foreach[U](f: T => U): Unit = {
+    asJava.onSuccess(t => f(t))
+    ()
+  }
+
+  def recover[U >: T](pf: PartialFunction[Throwable, U]): VFuture[U] =
+    new VFuture(widen[U].recover((t: Throwable) =>
+      if (pf.isDefinedAt(t)) JFuture.succeededFuture(pf(t)) else JFuture.failedFuture(t)))
+
+  def recoverWith[U >: T](pf: PartialFunction[Throwable, VFuture[U]]): VFuture[U] =
+    new VFuture(widen[U].recover((t: Throwable) =>
+      if (pf.isDefinedAt(t)) pf(t).asJava else JFuture.failedFuture(t)))
+
+  def transform[U](f: Try[T] => Try[U]): VFuture[U] =
+    new VFuture(asJava.transform[U]((ar: AsyncResult[T]) => f(toTry(ar)) match {
+      case Success(u) => JFuture.succeededFuture(u)
+      case Failure(t) => JFuture.failedFuture(t)
+    }))
+
+  /**
+    * Combines this Future with `that` into a Future of a tuple. Both Futures are already running, this only
+    * waits for both results.
+    */
+  def zip[U](that: VFuture[U]): VFuture[(T, U)] =
+    new VFuture(asJava.compose[(T, U)]((t: T) => mapped(that.asJava, (u: U) => (t, u))))
+
+  def onComplete[U](f: Try[T] => U): Unit = {
+    asJava.onComplete(ar => f(toTry(ar)))
+    ()
+  }
+
+  /**
+    * Converts this Future into a [[scala.concurrent.Future]].
+    */
+  def asScala(): ScalaFuture[T] = vertxFutureToScalaFuture(asJava)
+
+  // scalac resolves Future.map to the AsyncResult-signature it overrides, the returned instance is the same Future
+  private def mapped[A, B](future: JFuture[A], f: A => B): JFuture[B] =
+    future.map[B]((a: A) => f(a)).asInstanceOf[JFuture[B]]
+
+  private def widen[U >: T]: JFuture[U] = asJava.asInstanceOf[JFuture[U]]
+
+  private def toTry(ar: AsyncResult[T]): Try[T] =
+    if (ar.succeeded()) Success(ar.result()) else Failure(ar.cause())
+}
+
+object VFuture {
+  def apply[T](future: JFuture[T]): VFuture[T] = new VFuture(future)
+
+  def successful[T](value: T): VFuture[T] = new VFuture(JFuture.succeededFuture(value))
+
+  def failed[T](cause: Throwable): VFuture[T] = new VFuture(JFuture.failedFuture[T](cause))
+
+  def fromTry[T](result: Try[T]): VFuture[T] = result match {
+    case Success(t) => successful(t)
+    case Failure(t) => failed(t)
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.lang.scala
+
+import java.util.concurrent.ConcurrentLinkedQueue
+
+import io.vertx.core.{AsyncResult, Context, DeploymentOptions, Promise, Verticle, Vertx}
+
+import scala.concurrent.duration.{FiniteDuration, NANOSECONDS}
+import scala.jdk.CollectionConverters._
+
+/**
+  * Result of deploying several instances of a [[ScalaVerticle]].
+  *
+  * @param deploymentID the ID of the deployment, used to undeploy all instances at once
+  * @param startupTimes how long it took each instance to start, in the order the instances finished starting
+  */
+case class VerticleDeployment(deploymentID: String, startupTimes: Seq[FiniteDuration])
+
+object VerticleDeployment {
+
+  /**
+    * Deploys `instances` verticles created by the supplier. Vert.x assigns each instance its own event loop.
+    */
+  private[scala] def deploy(vertx: Vertx, supplier: () => ScalaVerticle, options: DeploymentOptions,
+                            instances: Int): concurrent.Future[VerticleDeployment] = {
+    val startupTimes = new ConcurrentLinkedQueue[FiniteDuration]()
+    val promise = concurrent.Promise[VerticleDeployment]()
+    vertx.deployVerticle(
+      () => new TimedVerticle(supplier().asJava(), nanos => startupTimes.add(FiniteDuration(nanos, NANOSECONDS))),
+      new DeploymentOptions(options).setInstances(instances),
+      { a: AsyncResult[String] =>
+        if (a.failed) promise.failure(a.cause)
+        else promise.success(VerticleDeployment(a.result(), startupTimes.asScala.toSeq))
+        ()
+      })
+    promise.future
+  }
+
+  /**
+    * Measures the time between a verticle being asked to start and it signalling that it has started.
+    */
+  private class TimedVerticle(delegate: Verticle, record: Long => Unit) extends Verticle {
+    override def getVertx: Vertx = delegate.getVertx
+
+    override def init(vertx: Vertx, context: Context): Unit = delegate.init(vertx, context)
+
+    override def start(startPromise: Promise[Void]): Unit = {
+      val start = System.nanoTime()
+      val timed = Promise.promise[Void]()
+      timed.future().onComplete(ar => {
+        if (ar.succeeded()) record(System.nanoTime() - start)
+        startPromise.handle(ar)
+      })
+      delegate.start(timed)
+    }
+
+    override def stop(stopPromise: Promise[Void]): Unit = delegate.stop(stopPromise)
+  }
+}
@@ -17,6 +17,7 @@
 package io.vertx.lang.scala
 
 import io.vertx.core.{Context, Vertx}
+import io.vertx.lang.scala.metrics.ExecutionContextMetrics
 
 import scala.concurrent.ExecutionContext
 
@@ -29,20 +30,55 @@ import scala.concurrent.ExecutionContext
   * Taken from the original Vert.x-impl
   * https://github.com/vert-x/mod-lang-scala/blob/master/src/main/scala/org/vertx/scala/core/VertxExecutionContext.scala
   *
+  * @param metrics records how Runnables get executed, see [[io.vertx.lang.scala.metrics.ExecutionContextMetrics]]
   */
-class VertxExecutionContext(val vertx: Vertx, val ctx:Context) extends ExecutionContext{
+class VertxExecutionContext(val vertx: Vertx, val ctx:Context, val metrics: ExecutionContextMetrics) extends ExecutionContext{
+
+  def this(vertx: Vertx, ctx: Context) = this(vertx, ctx, ExecutionContextMetrics.Disabled)
+
   override def execute(runnable: Runnable): Unit = {
     if (vertx.getOrCreateContext() != ctx) {
-      ctx.runOnContext((_:Void) => runnable.run())
+      if (metrics.isEnabled) {
+        val queued = System.nanoTime()
+        ctx.runOnContext((_:Void) => runMeasured(runnable, inline = false, queued))
+      } else {
+        ctx.runOnContext((_:Void) => runnable.run())
+      }
+    }
+    else if (metrics.isEnabled) {
+      runMeasured(runnable, inline = true, System.nanoTime())
     }
     else {
       runnable.run()
     }
   }
 
-  override def reportFailure(cause: Throwable): Unit = cause.printStackTrace()
+  override def reportFailure(cause: Throwable): Unit = {
+    if (metrics.isEnabled) {
+      metrics.taskFailed(cause)
+    }
+    cause.printStackTrace()
+  }
+
+  /**
+    * Runs the Runnable and reports how long it waited to be run and how long it took to the metrics.
+    *
+    * @param inline true if the Runnable is run right away on the context, false if it had to be scheduled onto it
+    * @param queued nano time at which the Runnable was handed to this execution context
+    */
+  protected def runMeasured(runnable: Runnable, inline: Boolean, queued: Long): Unit = {
+    val start = System.nanoTime()
+    try {
+      runnable.run()
+    } finally {
+      metrics.taskExecuted(inline, start - queued, System.nanoTime() - start)
+    }
+  }
 }
 
 object VertxExecutionContext {
   def apply(vertx: Vertx, ctx: Context): VertxExecutionContext = new VertxExecutionContext(vertx, ctx)
+
+  def apply(vertx: Vertx, ctx: Context, metrics: ExecutionContextMetrics): VertxExecutionContext =
+    new VertxExecutionContext(vertx, ctx, metrics)
 }
@@ -1,10 +1,10 @@
 package io.vertx.lang.scala
 
-import io.vertx.core.{Future => VertxFuture}
+import io.vertx.core.impl.ContextInternal
+import io.vertx.core.{AsyncResult, Handler, Vertx, Future => VertxFuture, Promise => VertxPromise}
 
-import scala.concurrent.Promise
-import scala.jdk.FutureConverters._
-import scala.util.Success
+import scala.concurrent.{ExecutionContext, Promise}
+import scala.util.{Failure, Success, Try}
 
 /**
  * Creating a package object scala that imports from the scala package is not possible.
@@ -23,12 +23,47 @@ package object conv {
     Success(s)
   }
 
+  /**
+   * Wires the result of the Vert.x-Future straight into a Scala-Promise. The Promise is completed from the
+   * callback of the Vert.x-Future, which Vert.x invokes on the context the Future belongs to.
+   * Already completed Futures are converted without registering a callback at all.
+   */
   def vertxFutureToScalaFuture[T](vertxFuture: VertxFuture[T]): ScalaFuture[T] = {
-    vertxFuture.toCompletionStage.asScala
+    if (vertxFuture.isComplete) {
+      if (vertxFuture.succeeded()) scala.concurrent.Future.successful(vertxFuture.result())
+      else scala.concurrent.Future.failed(vertxFuture.cause())
+    } else {
+      val promise = Promise[T]()
+      vertxFuture.onComplete(new Handler[AsyncResult[T]] {
+        override def handle(event: AsyncResult[T]): Unit =
+          if (event.succeeded()) promise.success(event.result()) else promise.failure(event.cause())
+      })
+      promise.future
+    }
   }
 
+  /**
+   * Wires the result of the Scala-Future straight into a Vert.x-Promise. If called on a Vert.x-thread the
+   * Promise is bound to the current context so handlers of the resulting Future are dispatched on it,
+   * no matter which thread completed the Scala-Future.
+   */
   def scalaFutureToVertxFuture[T](scalaFuture: ScalaFuture[T]): VertxFuture[T] = {
-    VertxFuture.fromCompletionStage(scalaFuture.asJava)
+    scalaFuture.value match {
+      case Some(Success(s)) => VertxFuture.succeededFuture(s)
+      case Some(Failure(t)) => VertxFuture.failedFuture(t)
+      case _ =>
+        val promise = newVertxPromise[T]()
+        scalaFuture.onComplete((result: Try[T]) => result match {
+          case Success(s) => promise.complete(s)
+          case Failure(t) => promise.fail(t)
+        })(ExecutionContext.parasitic)
+        promise.future()
+    }
+  }
+
+  private def newVertxPromise[T](): VertxPromise[T] = Vertx.currentContext() match {
+    case ctx: ContextInternal => ctx.promise[T]()
+    case _ => VertxPromise.promise[T]()
   }
 
   def newPromise[T](): ScalaPromise[T] = {
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.lang.scala.eventbus
+
+import java.util
+import java.util.UUID
+
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.eventbus._
+import io.vertx.core.{Context, MultiMap, Vertx}
+import io.vertx.lang.scala.VertxFutureConverter
+
+import scala.collection.immutable.ArraySeq
+import scala.concurrent.{ExecutionContext, Future, Promise}
+import scala.reflect.ClassTag
+import scala.util.{Failure, Success, Try}
+
+/**
+  * Envelope of several values sent as one message, see [[BatchRequests.requestBatched]].
+  */
+final case class Batch[T](items: Vector[T])
+
+object Batch {
+
+  implicit def codec[T](implicit items: BinaryCodec[T]): BinaryCodec[Batch[T]] = new BinaryCodec[Batch[T]] {
+    private val vectorCodec = BinaryCodec.iterableCodec[Vector, T]
+
+    override def write(value: Batch[T], out: Buffer): Unit = vectorCodec.write(value.items, out)
+
+    override def read(in: BinaryInput): Batch[T] = Batch(vectorCodec.read(in))
+  }
+
+  /**
+    * Registers the codec of batches of `T`. Batches of different types share a class, so each one is registered
+    * by a name including the type of its items.
+    */
+  def register[T: BinaryCodec: ClassTag](eventBus: EventBus): ScalaMessageCodec[Batch[T]] =
+    ScalaMessageCodec.registerNamed[Batch[T]](eventBus,
+      s"${ScalaMessageCodec.nameOf(classOf[Batch[_]])}[${implicitly[ClassTag[T]].runtimeClass.getName}]")
+}
+
+/**
+  * Request/reply for many values at once, without paying for a reply handler, a timer and a Promise per value.
+  *
+  * [[requestAll]] sends every value as its own message but collects the replies with a single consumer and a
+  * single timeout for the whole batch. [[requestBatched]] coalesces the values into [[Batch]] envelopes, so a
+  * batch only costs one request per envelope.
+  *
+  * Both need a consumer that knows about batches, see [[serve]].
+  */
+object BatchRequests {
+
+  /**
+    * Header of the messages sent by [[requestAll]], containing the address to send the reply to.
+    */
+  val ReplyAddressHeader = "x-vertx-scala-batch-reply-address"
+
+  /**
+    * Header of the messages sent by [[requestAll]] and their replies, containing the index of the value.
+    */
+  val IndexHeader = "x-vertx-scala-batch-index"
+
+  /**
+    * Header of a failed reply to a message sent by [[requestAll]], containing the failure message.
+    */
+  val FailureHeader = "x-vertx-scala-batch-failure"
+
+  /**
+    * Failure code used when the handler of [[serve]] fails.
+    */
+  val FailureCode = 500
+
+  // Callbacks only hand over results, they can run on whatever thread completes the Future
+  private implicit val ec: ExecutionContext = ExecutionContext.parasitic
+
+  /**
+    * Sends each value to the address and collects the replies in the order of the values.
+    *
+    * The replies are sent to a single consumer registered for the batch, the send timeout of the options applies to
+    * the batch as a whole. The first failed reply or the timeout fails the returned Future.
+    *
+    * @return the replies, in the order of the values
+    */
+  def requestAll[T: BinaryCodec: ClassTag, R: BinaryCodec: ClassTag](vertx: Vertx, address: String, values: Iterable[T],
+                                                                     options: DeliveryOptions): Future[Seq[R]] = {
+    val requests = values.toIndexedSeq
+    if (requests.isEmpty) {
+      Future.successful(Seq.empty)
+    } else {
+      val eventBus = vertx.eventBus()
+      val codecName = ScalaMessageCodec.register[T](eventBus).name
+      ScalaMessageCodec.register[R](eventBus)
+      val promise = Promise[Seq[R]]()
+      val ctx = vertx.getOrCreateContext()
+      ctx.runOnContext(_ => new ReplyCollector[T, R](ctx, eventBus, address, requests, codecName, options, promise).start())
+      promise.future
+    }
+  }
+
+  /**
+    * Sends the values in [[Batch]] envelopes of at most `batchSize` values, one request per envelope.
+    *
+    * @return the replies, in the order of the values
+    */
+  def requestBatched[T: BinaryCodec: ClassTag, R: BinaryCodec: ClassTag](eventBus: EventBus, address: String,
+                                                                         values: Iterable[T], batchSize: Int,
+                                                                         options: DeliveryOptions): Future[Seq[R]] = {
+    require(batchSize > 0, "batchSize must be greater than 0")
+    val codecName = Batch.register[T](eventBus).name
+    Batch.register[R](eventBus)
+    val envelopeOptions = new DeliveryOptions(options).setCodecName(codecName)
+    Future.sequence(values.iterator.grouped(batchSize).map { group =>
+      eventBus.request[Batch[R]](address, Batch(group.toVector), envelopeOptions).asScala().map(_.body().items)
+    }.toSeq).map(_.flatten)
+  }
+
+  /**
+    * Consumes the values sent to the address and replies with the result of the handler. Values sent by a plain
+    * request, by [[requestAll]] and in envelopes by [[requestBatched]] are all handled.
+    *
+    * A failed or throwing handler fails the request with [[FailureCode]]. For an envelope the whole envelope fails.
+    */
+  def serve[T: BinaryCodec: ClassTag, R: BinaryCodec: ClassTag](eventBus: EventBus, address: String)
+                                                              (handler: T => Future[R]): MessageConsumer[T] = {
+    ScalaMessageCodec.register[T](eventBus)
+    val replyOptions = new DeliveryOptions().setCodecName(ScalaMessageCodec.register[R](eventBus).name)
+    Batch.register[T](eventBus)
+    val batchReplyOptions = new DeliveryOptions().setCodecName(Batch.register[R](eventBus).name)
+    val handle = (value: T) => Future.fromTry(Try(handler(value))).flatten
+    eventBus.consumer[AnyRef](address, (message: Message[AnyRef]) => message.body() match {
+      case batch: Batch[T @unchecked] =>
+        Future.traverse(batch.items)(handle).onComplete {
+          case Success(replies) => message.reply(Batch(replies), batchReplyOptions)
+          case Failure(t) => message.fail(FailureCode, t.getMessage)
+        }
+      case value =>
+        val result = handle(value.asInstanceOf[T])
+        if (message.replyAddress() != null) {
+          result.onComplete {
+            case Success(reply) => message.reply(reply, replyOptions)
+            case Failure(t) => message.fail(FailureCode, t.getMessage)
+          }
+        } else {
+          val replyAddress = message.headers().get(ReplyAddressHeader)
+          if (replyAddress != null) {
+            val index = message.headers().get(IndexHeader)
+            result.onComplete {
+              case Success(reply) =>
+                eventBus.send(replyAddress, reply, new DeliveryOptions(replyOptions).addHeader(IndexHeader, index))
+              case Failure(t) =>
+                eventBus.send(replyAddress, null, new DeliveryOptions().addHeader(IndexHeader, index)
+                  .addHeader(FailureHeader, String.valueOf(t.getMessage)))
+            }
+          }
+        }
+    }).asInstanceOf[MessageConsumer[T]]
+  }
+
+  /**
+    * Collects the replies of a [[requestAll]], only used from its context.
+    */
+  private final class ReplyCollector[T, R](ctx: Context, eventBus: EventBus, address: String, requests: IndexedSeq[T],
+                                           codecName: String, options: DeliveryOptions, promise: Promise[Seq[R]]) {
+
+    private val replyAddress = s"__vertx.scala.batch.${UUID.randomUUID()}"
+    private val replies = new Array[Any](requests.size)
+    private val received = new util.BitSet(requests.size)
+    private var remaining = requests.size
+    private var consumer: MessageConsumer[R] = _
+    private var timerID = -1L
+
+    def start(): Unit = {
+      timerID = ctx.owner().setTimer(options.getSendTimeout, _ => fail(new ReplyException(ReplyFailure.TIMEOUT,
+        s"Timed out after waiting ${options.getSendTimeout}(ms) for $remaining of ${requests.size} replies, address: $address")))
+      consumer = eventBus.consumer[R](replyAddress, (message: Message[R]) => receive(message))
+      // Clustered replies can only arrive once the consumer is known to the cluster
+      consumer.completionHandler(registered => if (registered.failed()) fail(registered.cause()) else send())
+    }
+
+    private def send(): Unit = {
+      var i = 0
+      while (i < requests.size && !promise.isCompleted) {
+        val headers = MultiMap.caseInsensitiveMultiMap()
+        if (options.getHeaders != null) {
+          headers.addAll(options.getHeaders)
+        }
+        headers.add(ReplyAddressHeader, replyAddress).add(IndexHeader, Integer.toString(i))
+        eventBus.send(address, requests(i), new DeliveryOptions(options).setCodecName(codecName).setHeaders(headers))
+        i += 1
+      }
+    }
+
+    private def receive(message: Message[R]): Unit = {
+      val index = Integer.parseInt(message.headers().get(IndexHeader))
+      val failure = message.headers().get(FailureHeader)
+      if (failure != null) {
+        fail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, FailureCode, failure))
+      } else if (!received.get(index)) {
+        received.set(index)
+        replies(index) = message.body()
+        remaining -= 1
+        if (remaining == 0 && !promise.isCompleted) {
+          close()
+          promise.success(ArraySeq.unsafeWrapArray(replies).asInstanceOf[Seq[R]])
+        }
+      }
+    }
+
+    private def fail(t: Throwable): Unit =
+      if (!promise.isCompleted) {
+        close()
+        promise.failure(t)
+      }
+
+    // Called before completing the promise, so no reply consumer is left once the batch is done
+    private def close(): Unit = {
+      ctx.owner().cancelTimer(timerID)
+      if (consumer != null) {
+        consumer.unregister()
+      }
+    }
+  }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.lang.scala.eventbus
+
+import java.nio.charset.StandardCharsets
+
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.json.{DecodeException, JsonArray, JsonObject}
+
+import scala.collection.Factory
+import scala.language.experimental.macros
+
+/**
+  * Encodes a `T` into a compact binary format and decodes it again, without reflection.
+  *
+  * Codecs for case classes, case objects and sealed traits are derived at compile time:
+  * {{{
+  * case class Order(id: Long, items: Seq[Item], note: Option[String])
+  * object Order {
+  *   implicit val codec: BinaryCodec[Order] = BinaryCodec.derived
+  * }
+  * }}}
+  * Unlike JSON the format carries no field names: the fields of a case class are written in the order of its
+  * constructor, a member of a sealed trait is written as its index in the alphabetically sorted members followed by
+  * the member itself. Ints and Longs are written as zig-zag varints, so small numbers take a single byte. Both sides
+  * have to use the same version of a type, adding a field or a member changes the format.
+  */
+trait BinaryCodec[T] {
+
+  /**
+    * Appends the encoded value to the Buffer.
+    */
+  def write(value: T, out: Buffer): Unit
+
+  /**
+    * Reads a value starting at the current position of the input, leaving the position right after it.
+    */
+  def read(in: BinaryInput): T
+
+  /**
+    * @return a Buffer containing the encoded value
+    */
+  def encode(value: T): Buffer = {
+    val buffer = Buffer.buffer()
+    write(value, buffer)
+    buffer
+  }
+
+  /**
+    * Decodes the value from the content of the Buffer.
+    *
+    * @throws DecodeException if the content doesn't match the type
+    */
+  def decode(buffer: Buffer): T = {
+    val in = new BinaryInput(buffer, 0)
+    val value = read(in)
+    if (in.position != buffer.length()) {
+      throw new DecodeException(s"Unexpected ${buffer.length() - in.position} trailing bytes")
+    }
+    value
+  }
+}
+
+/**
+  * Reads the primitives of the [[BinaryCodec]] format from a Buffer, starting at `position`.
+  */
+final class BinaryInput(val buffer: Buffer, var position: Int) {
+
+  def readByte(): Byte = {
+    val b = buffer.getByte(position)
+    position += 1
+    b
+  }
+
+  def readBoolean(): Boolean = readByte() != 0
+
+  def readFloat(): Float = {
+    val f = buffer.getFloat(position)
+    position += 4
+    f
+  }
+
+  def readDouble(): Double = {
+    val d = buffer.getDouble(position)
+    position += 8
+    d
+  }
+
+  /**
+    * Reads a varint without zig-zag decoding, as written by [[BinaryCodec.writeSize]].
+    */
+  def readSize(): Int = {
+    var result = 0
+    var shift = 0
+    var b = 0
+    while ({b = readByte(); b < 0}) {
+      result |= (b & 0x7f) << shift
+      shift += 7
+      if (shift > 28) {
+        throw new DecodeException(s"Malformed varint at ${position - 1}")
+      }
+    }
+    result | (b << shift)
+  }
+
+  def readInt(): Int = {
+    val n = readSize()
+    (n >>> 1) ^ -(n & 1)
+  }
+
+  def readLong(): Long = {
+    var result = 0L
+    var shift = 0
+    var b = 0
+    while ({b = readByte(); b < 0}) {
+      result |= (b & 0x7fL) << shift
+      shift += 7
+      if (shift > 63) {
+        throw new DecodeException(s"Malformed varint at ${position - 1}")
+      }
+    }
+    val n = result | (b.toLong << shift)
+    (n >>> 1) ^ -(n & 1)
+  }
+
+  def readString(): String = {
+    val length = readSize()
+    val s = buffer.getString(position, position + length, "UTF-8")
+    position += length
+    s
+  }
+
+  def readBuffer(): Buffer = {
+    val length = readSize()
+    val b = buffer.getBuffer(position, position + length)
+    position += length
+    b
+  }
+}
+
+object BinaryCodec extends BinaryCollectionCodecs {
+
+  def apply[T](implicit codec: BinaryCodec[T]): BinaryCodec[T] = codec
+
+  /**
+    * Derives the codec of a case class, case object or sealed trait.
+    *
+    * Codecs for the types of the fields (or members of a sealed trait) are taken from the implicit scope. Case
+    * classes and sealed traits that have no implicit codec are derived along with the codec. A recursive type needs
+    * an implicit codec defined with this method, e.g. `implicit val codec: BinaryCodec[Tree] = BinaryCodec.derived`.
+    */
+  def derived[T]: BinaryCodec[T] = macro BinaryCodecMacros.derive[T]
+
+  /**
+    * Appends a non-negative Int as varint, e.g. the size of a collection.
+    */
+  def writeSize(out: Buffer, size: Int): Unit = {
+    var n = size
+    while ((n & ~0x7f) != 0) {
+      out.appendByte(((n & 0x7f) | 0x80).toByte)
+      n >>>= 7
+    }
+    out.appendByte(n.toByte)
+  }
+
+  def writeInt(out: Buffer, value: Int): Unit = writeSize(out, (value << 1) ^ (value >> 31))
+
+  def writeLong(out: Buffer, value: Long): Unit = {
+    var n = (value << 1) ^ (value >> 63)
+    while ((n & ~0x7fL) != 0) {
+      out.appendByte(((n & 0x7f) | 0x80).toByte)
+      n >>>= 7
+    }
+    out.appendByte(n.toByte)
+  }
+
+  def writeString(out: Buffer, value: String): Unit = {
+    val bytes = value.getBytes(StandardCharsets.UTF_8)
+    writeSize(out, bytes.length)
+    out.appendBytes(bytes)
+  }
+
+  def writeBuffer(out: Buffer, value: Buffer): Unit = {
+    writeSize(out, value.length())
+    out.appendBuffer(value)
+  }
+
+  /**
+    * Fails because the index of a sealed trait member is unknown. Used by derived codecs.
+    */
+  def unknownMember(sealedType: String, index: Int): Nothing =
+    throw new DecodeException(s"Unknown member $index of $sealedType")
+
+  implicit val stringCodec: BinaryCodec[String] = new BinaryCodec[String] {
+    override def write(value: String, out: Buffer): Unit = writeString(out, value)
+
+    override def read(in: BinaryInput): String = in.readString()
+  }
+
+  implicit val booleanCodec: BinaryCodec[Boolean] = new BinaryCodec[Boolean] {
+    override def write(value: Boolean, out: Buffer): Unit = out.appendByte(if (value) 1 else 0)
+
+    override def read(in: BinaryInput): Boolean = in.readBoolean()
+  }
+
+  implicit val byteCodec: BinaryCodec[Byte] = new BinaryCodec[Byte] {
+    override def write(value: Byte, out: Buffer): Unit = out.appendByte(value)
+
+    override def read(in: BinaryInput): Byte = in.readByte()
+  }
+
+  implicit val intCodec: BinaryCodec[Int] = new BinaryCodec[Int] {
+    override def write(value: Int, out: Buffer): Unit = writeInt(out, value)
+
+    override def read(in: BinaryInput): Int = in.readInt()
+  }
+
+  implicit val longCodec: BinaryCodec[Long] = new BinaryCodec[Long] {
+    override def write(value: Long, out: Buffer): Unit = writeLong(out, value)
+
+    override def read(in: BinaryInput): Long = in.readLong()
+  }
+
+  implicit val floatCodec: BinaryCodec[Float] = new BinaryCodec[Float] {
+    override def write(value: Float, out: Buffer): Unit = out.appendFloat(value)
+
+    override def read(in: BinaryInput): Float = in.readFloat()
+  }
+
+  implicit val doubleCodec: BinaryCodec[Double] = new BinaryCodec[Double] {
+    override def write(value: Double, out: Buffer): Unit = out.appendDouble(value)
+
+    override def read(in: BinaryInput): Double = in.readDouble()
+  }
+
+  implicit val bufferCodec: BinaryCodec[Buffer] = new BinaryCodec[Buffer] {
+    override def write(value: Buffer, out: Buffer): Unit = writeBuffer(out, value)
+
+    override def read(in: BinaryInput): Buffer = in.readBuffer()
+  }
+
+  implicit val jsonObjectCodec: BinaryCodec[JsonObject] = new BinaryCodec[JsonObject] {
+    override def write(value: JsonObject, out: Buffer): Unit = writeBuffer(out, value.toBuffer)
+
+    override def read(in: BinaryInput): JsonObject = new JsonObject(in.readBuffer())
+  }
+
+  implicit val jsonArrayCodec: BinaryCodec[JsonArray] = new BinaryCodec[JsonArray] {
+    override def write(value: JsonArray, out: Buffer): Unit = writeBuffer(out, value.toBuffer)
+
+    override def read(in: BinaryInput): JsonArray = new JsonArray(in.readBuffer())
+  }
+
+  implicit def optionCodec[A](implicit codec: BinaryCodec[A]): BinaryCodec[Option[A]] = new BinaryCodec[Option[A]] {
+    override def write(value: Option[A], out: Buffer): Unit = value match {
+      case Some(a) =>
+        out.appendByte(1)
+        codec.write(a, out)
+      case None => out.appendByte(0)
+    }
+
+    override def read(in: BinaryInput): Option[A] = if (in.readBoolean()) Some(codec.read(in)) else None
+  }
+
+  implicit def mapCodec[K, V](implicit keys: BinaryCodec[K], values: BinaryCodec[V]): BinaryCodec[Map[K, V]] =
+    new BinaryCodec[Map[K, V]] {
+      override def write(value: Map[K, V], out: Buffer): Unit = {
+        writeSize(out, value.size)
+        value.foreach { case (k, v) =>
+          keys.write(k, out)
+          values.write(v, out)
+        }
+      }
+
+      override def read(in: BinaryInput): Map[K, V] = {
+        val size = in.readSize()
+        val builder = Map.newBuilder[K, V]
+        builder.sizeHint(size)
+        var i = 0
+        while (i < size) {
+          val k = keys.read(in)
+          builder += k -> values.read(in)
+          i += 1
+        }
+        builder.result()
+      }
+    }
+}
+
+/**
+  * Codecs for collections, with a lower priority than the ones in [[BinaryCodec]] as a Map is a collection, too.
+  */
+trait BinaryCollectionCodecs {
+
+  /**
+    * Encodes collections (e.g. Seq, List, Vector, Set) as their size followed by their elements.
+    */
+  implicit def iterableCodec[C[X] <: Iterable[X], A](implicit codec: BinaryCodec[A],
+                                                      factory: Factory[A, C[A]]): BinaryCodec[C[A]] = new BinaryCodec[C[A]] {
+    override def write(value: C[A], out: Buffer): Unit = {
+      BinaryCodec.writeSize(out, value.size)
+      value.foreach(codec.write(_, out))
+    }
+
+    override def read(in: BinaryInput): C[A] = {
+      val size = in.readSize()
+      val builder = factory.newBuilder
+      builder.sizeHint(size)
+      var i = 0
+      while (i < size) {
+        builder += codec.read(in)
+        i += 1
+      }
+      builder.result()
+    }
+  }
+}
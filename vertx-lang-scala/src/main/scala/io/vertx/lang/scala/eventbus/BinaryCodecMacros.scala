@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.lang.scala.eventbus
+
+import io.vertx.lang.scala.CodecMacros
+
+import scala.reflect.macros.blackbox
+
+/**
+  * Derivation of [[BinaryCodec]]s, see [[BinaryCodec.derived]].
+  *
+  * The type analysis is shared with the derivation of JSON codecs, see [[CodecMacros]]. Fields are written one after
+  * the other, members of sealed traits as their index in the sorted members followed by the member.
+  */
+class BinaryCodecMacros(val c: blackbox.Context) extends CodecMacros {
+
+  import c.universe._
+
+  override protected val codecName: String = "BinaryCodec"
+  override protected val codecs: Tree = q"_root_.io.vertx.lang.scala.eventbus.BinaryCodec"
+  override protected val codecType: Tree = tq"_root_.io.vertx.lang.scala.eventbus.BinaryCodec"
+  override protected def codecConstructor: Type = weakTypeOf[BinaryCodec[Any]].typeConstructor
+  private val inputType = tq"_root_.io.vertx.lang.scala.eventbus.BinaryInput"
+  private val bufferType = tq"_root_.io.vertx.core.buffer.Buffer"
+
+  override protected def caseObjectCodec(tpe: Type, module: Symbol): Tree = {
+    q"""
+      new $codecType[$tpe] {
+        override def write(value: $tpe, out: $bufferType): _root_.scala.Unit = ()
+
+        override def read(in: $inputType): $tpe = $module
+      }
+    """
+  }
+
+  override protected def caseClassCodec(tpe: Type, fields: Seq[Field], locals: Seq[Tree]): Tree = {
+    val values = fields.map(_ => TermName(c.freshName("value")))
+
+    q"""
+      new $codecType[$tpe] {
+        ..$locals
+        ..${codecVals(fields)}
+
+        override def write(value: $tpe, out: $bufferType): _root_.scala.Unit = {
+          ..${fields.map(f => q"${f.codec}.write(value.${f.name}, out)")}
+        }
+
+        override def read(in: $inputType): $tpe = {
+          ..${fields.zip(values).map { case (f, v) => q"val $v = ${f.codec}.read(in)" }}
+          new $tpe(..$values)
+        }
+      }
+    """
+  }
+
+  override protected def sealedCodec(tpe: Type, members: Seq[Field], locals: Seq[Tree]): Tree = {
+    val sym = tpe.typeSymbol
+    val writes = members.zipWithIndex.map { case (m, i) =>
+      cq"v: ${m.tpe} => $codecs.writeSize(out, $i); ${m.codec}.write(v, out)"
+    }
+    val reads = members.zipWithIndex.map { case (m, i) => cq"$i => ${m.codec}.read(in)" }
+
+    q"""
+      new $codecType[$tpe] {
+        ..$locals
+        ..${codecVals(members)}
+
+        override def write(value: $tpe, out: $bufferType): _root_.scala.Unit = value match { case ..$writes }
+
+        override def read(in: $inputType): $tpe = in.readSize() match {
+          case ..$reads
+          case other => $codecs.unknownMember(${sym.name.decodedName.toString}, other)
+        }
+      }
+    """
+  }
+}
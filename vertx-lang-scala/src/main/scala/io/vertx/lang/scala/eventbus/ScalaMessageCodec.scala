@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.lang.scala.eventbus
+
+import java.lang.reflect.Modifier
+import java.util
+import java.util.concurrent.ConcurrentHashMap
+
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.eventbus.{EventBus, MessageCodec}
+
+import scala.reflect.ClassTag
+
+/**
+  * [[io.vertx.core.eventbus.MessageCodec]] for a Scala type, so instances can be sent over the event bus as they
+  * are instead of being converted to a JsonObject.
+  *
+  * Local delivery passes the sent instance itself to the consumer, without copying or encoding it. This is only
+  * safe for immutable types, like case classes of immutable fields. Clustered delivery encodes the instance with
+  * its [[BinaryCodec]], prefixed by the length of the encoded instance.
+  *
+  * Codecs are registered once per event bus and type by [[ScalaMessageCodec.register]], which the typed methods of
+  * [[EventBusCodecs]] do on first use.
+  *
+  * @param name  the name of the codec, the same on every node of the cluster
+  * @param clazz the class of the instances
+  * @param codec encodes the instances for clustered delivery
+  */
+class ScalaMessageCodec[T](override val name: String, val clazz: Class[T], val codec: BinaryCodec[T])
+  extends MessageCodec[T, T] {
+
+  override def encodeToWire(buffer: Buffer, value: T): Unit = {
+    val start = buffer.length()
+    buffer.appendInt(0)
+    codec.write(value, buffer)
+    buffer.setInt(start, buffer.length() - start - 4)
+  }
+
+  override def decodeFromWire(pos: Int, buffer: Buffer): T = {
+    val end = pos + 4 + buffer.getInt(pos)
+    val in = new BinaryInput(buffer, pos + 4)
+    val value = codec.read(in)
+    if (in.position != end) {
+      throw new IllegalStateException(s"$name read ${in.position - pos - 4} bytes of ${end - pos - 4}")
+    }
+    value
+  }
+
+  override def transform(value: T): T = value
+
+  override def systemCodecID(): Byte = -1
+}
+
+object ScalaMessageCodec {
+
+  // Guarded by registered
+  private val registered = new util.WeakHashMap[EventBus, ConcurrentHashMap[String, ScalaMessageCodec[_]]]()
+
+  /**
+    * @return the name the codec of the class is registered with, the same on every node
+    */
+  def nameOf(clazz: Class[_]): String = s"scala:${clazz.getName}"
+
+  /**
+    * Registers the codec of `T` on the event bus, unless this was done before, and returns it.
+    *
+    * Concrete classes are registered as default codec, so even sending them without a codec name in the
+    * DeliveryOptions skips JSON. Traits and abstract classes are only registered by name, as Vert.x looks up default
+    * codecs by the exact class of the body.
+    */
+  def register[T](eventBus: EventBus)(implicit codec: BinaryCodec[T], tag: ClassTag[T]): ScalaMessageCodec[T] = {
+    val clazz = tag.runtimeClass.asInstanceOf[Class[T]]
+    val default = !clazz.isInterface && !Modifier.isAbstract(clazz.getModifiers)
+    register(eventBus, nameOf(clazz), clazz, codec, default)
+  }
+
+  /**
+    * Like [[register]] but only registers the codec by the given name, for generic types whose instances share a
+    * class but need different codecs.
+    */
+  def registerNamed[T](eventBus: EventBus, name: String)
+                      (implicit codec: BinaryCodec[T], tag: ClassTag[T]): ScalaMessageCodec[T] =
+    register(eventBus, name, tag.runtimeClass.asInstanceOf[Class[T]], codec, default = false)
+
+  private def register[T](eventBus: EventBus, name: String, clazz: Class[T], codec: BinaryCodec[T],
+                          default: Boolean): ScalaMessageCodec[T] = {
+    val codecs = registered.synchronized(registered.computeIfAbsent(eventBus, _ => new ConcurrentHashMap()))
+    codecs.computeIfAbsent(name, _ => {
+      val messageCodec = new ScalaMessageCodec[T](name, clazz, codec)
+      if (default) {
+        eventBus.registerDefaultCodec(clazz, messageCodec)
+      } else {
+        eventBus.registerCodec(messageCodec)
+      }
+      messageCodec
+    }).asInstanceOf[ScalaMessageCodec[T]]
+  }
+}
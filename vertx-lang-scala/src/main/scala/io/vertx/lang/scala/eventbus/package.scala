@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.lang.scala
+
+import io.vertx.core.Vertx
+import io.vertx.core.eventbus.{DeliveryOptions, EventBus, Message, MessageConsumer}
+
+import _root_.scala.concurrent.ExecutionContext
+import _root_.scala.reflect.ClassTag
+
+package object eventbus {
+
+  /**
+    * Sends Scala types over the event bus using their [[ScalaMessageCodec]], registering it on first use.
+    *
+    * {{{
+    * import io.vertx.lang.scala.eventbus._
+    *
+    * vertx.eventBus().consumerTyped[Order]("orders")(msg => process(msg.body()))
+    * vertx.eventBus().sendTyped("orders", Order(1, Seq(Item("book", 2)), None))
+    * }}}
+    */
+  implicit class EventBusCodecs(val asJava: EventBus) extends AnyVal {
+
+    /**
+      * Registers the codec of `T`, needed on nodes that receive a `T` without sending one, e.g. as reply.
+      */
+    def registerScalaCodec[T: BinaryCodec: ClassTag](): ScalaMessageCodec[T] = ScalaMessageCodec.register[T](asJava)
+
+    /**
+      * Like [[io.vertx.core.eventbus.EventBus#send]] but with the codec of `T`.
+      */
+    def sendTyped[T: BinaryCodec: ClassTag](address: String, value: T,
+                                            options: DeliveryOptions = new DeliveryOptions()): EventBus =
+      asJava.send(address, value, withCodec[T](options))
+
+    /**
+      * Like [[io.vertx.core.eventbus.EventBus#publish]] but with the codec of `T`.
+      */
+    def publishTyped[T: BinaryCodec: ClassTag](address: String, value: T,
+                                               options: DeliveryOptions = new DeliveryOptions()): EventBus =
+      asJava.publish(address, value, withCodec[T](options))
+
+    /**
+      * Like [[io.vertx.core.eventbus.EventBus#request]] but with the codec of `T`, registering the codec of the
+      * reply as well.
+      *
+      * @return the body of the reply
+      */
+    def requestTyped[T: BinaryCodec: ClassTag, R: BinaryCodec: ClassTag](address: String, value: T,
+                                                                         options: DeliveryOptions = new DeliveryOptions()): concurrent.Future[R] = {
+      ScalaMessageCodec.register[R](asJava)
+      asJava.request[R](address, value, withCodec[T](options)).asScala().map(_.body())(ExecutionContext.parasitic)
+    }
+
+    /**
+      * Like [[io.vertx.core.eventbus.EventBus#consumer]] but registers the codec of `T`, so the messages can be
+      * decoded when they come from another node.
+      */
+    def consumerTyped[T: BinaryCodec: ClassTag](address: String)(handler: Message[T] => Unit): MessageConsumer[T] = {
+      ScalaMessageCodec.register[T](asJava)
+      asJava.consumer[T](address, (message: Message[T]) => handler(message))
+    }
+
+    /**
+      * Like [[consumerTyped]] but replies with the result of the handler, also to values sent by
+      * [[VertxBatchRequests.requestAll]] and [[requestBatched]], see [[BatchRequests.serve]].
+      */
+    def replyingConsumer[T: BinaryCodec: ClassTag, R: BinaryCodec: ClassTag](address: String)
+                                                                           (handler: T => concurrent.Future[R]): MessageConsumer[T] =
+      BatchRequests.serve[T, R](asJava, address)(handler)
+
+    /**
+      * Sends the values in [[Batch]] envelopes of at most `batchSize` values to a [[replyingConsumer]], one request
+      * per envelope.
+      *
+      * @return the replies, in the order of the values
+      */
+    def requestBatched[T: BinaryCodec: ClassTag, R: BinaryCodec: ClassTag](address: String, values: Iterable[T],
+                                                                           batchSize: Int = Int.MaxValue,
+                                                                           options: DeliveryOptions = new DeliveryOptions()): concurrent.Future[Seq[R]] =
+      BatchRequests.requestBatched[T, R](asJava, address, values, batchSize, options)
+
+    private def withCodec[T: BinaryCodec: ClassTag](options: DeliveryOptions): DeliveryOptions =
+      new DeliveryOptions(options).setCodecName(ScalaMessageCodec.register[T](asJava).name)
+  }
+
+  implicit class VertxBatchRequests(val asJava: Vertx) extends AnyVal {
+
+    /**
+      * Sends each value to a [[EventBusCodecs.replyingConsumer]], collecting all replies with one consumer and one
+      * timeout instead of one per request, see [[BatchRequests.requestAll]].
+      *
+      * @return the replies, in the order of the values
+      */
+    def requestAll[T: BinaryCodec: ClassTag, R: BinaryCodec: ClassTag](address: String, values: Iterable[T],
+                                                                       options: DeliveryOptions = new DeliveryOptions()): concurrent.Future[Seq[R]] =
+      BatchRequests.requestAll[T, R](asJava, address, values, options)
+  }
+
+  implicit class MessageCodecs[T](val asJava: Message[T]) extends AnyVal {
+
+    /**
+      * Like [[io.vertx.core.eventbus.Message#reply]] but with the codec of `R`, which has to be registered on this
+      * node, e.g. by [[EventBusCodecs.requestTyped]] or [[EventBusCodecs.registerScalaCodec]].
+      */
+    def replyTyped[R: ClassTag](value: R, options: DeliveryOptions = new DeliveryOptions()): Unit =
+      asJava.reply(value, new DeliveryOptions(options)
+        .setCodecName(ScalaMessageCodec.nameOf(implicitly[ClassTag[R]].runtimeClass)))
+  }
+}
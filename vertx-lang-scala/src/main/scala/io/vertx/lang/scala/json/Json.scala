@@ -16,6 +16,11 @@
 package io.vertx.lang.scala.json
 
 import java.util
+
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.streams.ReadStream
+
+import scala.collection.IndexedSeqView
 import scala.jdk.CollectionConverters.ListHasAsScala
 
 /**
@@ -106,11 +111,101 @@ object Json {
     listToJsArr(list)
   }
 
+  /**
+   * Encodes an object straight into a Buffer, without building a JsonObject first.
+   *
+   * @param fields Writes the fields of the object, see [[JsonWriter]].
+   * @return A Buffer containing the encoded object.
+   */
+  def writeObj(fields: JsonWriter => Unit): Buffer = JsonWriter.write(_.obj(fields))
+
+  /**
+   * Encodes an array straight into a Buffer, without building a JsonArray first.
+   *
+   * @param elements Writes the elements of the array, see [[JsonWriter]].
+   * @return A Buffer containing the encoded array.
+   */
+  def writeArr(elements: JsonWriter => Unit): Buffer = JsonWriter.write(_.arr(elements))
+
+  /**
+   * Wraps an encoded object without parsing it, see [[LazyJsonObject]].
+   *
+   * @param json The encoded object.
+   * @return A LazyJsonObject parsing only the fields that are accessed.
+   */
+  def lazyObj(json: Buffer): LazyJsonObject = LazyJsonObject(json)
+
+  /**
+   * Decodes the elements of a top-level array while it is being streamed, see [[JsonArrayDecoder]].
+   *
+   * @param source The stream of Buffers containing the array.
+   * @return A stream of the decoded elements.
+   */
+  def decodeArray[T: JsonCodec](source: ReadStream[Buffer]): ReadStream[T] = JsonArrayDecoder[T](source)
+
+  /**
+   * Typed access to the elements of a JsonArray, without copying it.
+   *
+   * The getters return None (or the default) if the index is out of bounds or the element has another type. The
+   * variants taking a default don't box primitives.
+   */
   implicit class JsArray(val internal: JsonArray) extends AnyVal {
 
+    /**
+     * @return a copy of the elements, see [[elements]] for a view
+     */
     def list: List[_ >: Any] = {
       internal.getList.asScala.toList
     }
+
+    /**
+     * @return a live view of the elements, nested maps and lists wrapped like `getValue` does
+     */
+    def elements: IndexedSeqView[AnyRef] = JsonAccess.view(internal, identity)
+
+    /**
+     * @return a live view of the elements, each decoded with its [[JsonCodec]] when it is accessed
+     */
+    def elementsAs[T](implicit codec: JsonCodec[T]): IndexedSeqView[T] = JsonAccess.view(internal, codec.fromJson)
+
+    def string(index: Int): Option[String] = JsonAccess.string(JsonAccess.element(internal, index))
+
+    def string(index: Int, default: String): String = JsonAccess.string(JsonAccess.element(internal, index), default)
+
+    def int(index: Int): Option[Int] = JsonAccess.int(JsonAccess.element(internal, index))
+
+    def int(index: Int, default: Int): Int = JsonAccess.int(JsonAccess.element(internal, index), default)
+
+    def long(index: Int): Option[Long] = JsonAccess.long(JsonAccess.element(internal, index))
+
+    def long(index: Int, default: Long): Long = JsonAccess.long(JsonAccess.element(internal, index), default)
+
+    def double(index: Int): Option[Double] = JsonAccess.double(JsonAccess.element(internal, index))
+
+    def double(index: Int, default: Double): Double = JsonAccess.double(JsonAccess.element(internal, index), default)
+
+    def boolean(index: Int): Option[Boolean] = JsonAccess.boolean(JsonAccess.element(internal, index))
+
+    def boolean(index: Int, default: Boolean): Boolean =
+      JsonAccess.boolean(JsonAccess.element(internal, index), default)
+
+    def obj(index: Int): Option[JsonObject] = JsonAccess.obj(JsonAccess.element(internal, index))
+
+    def arr(index: Int): Option[JsonArray] = JsonAccess.arr(JsonAccess.element(internal, index))
+
+    /**
+     * Walks nested objects and arrays, e.g. `arr.at(0, "a")` is field `a` of the first element.
+     *
+     * @param path field names (Strings) and array indices (Ints)
+     * @return the value at the end of the path, None if a segment doesn't exist
+     */
+    def at(path: Any*): Option[AnyRef] = Option(JsonAccess.wrap(JsonAccess.at(internal, path)))
+
+    /**
+     * Like [[at]] but decodes the value with its [[JsonCodec]].
+     */
+    def atAs[T](path: Any*)(implicit codec: JsonCodec[T]): Option[T] =
+      JsonAccess.decode(JsonAccess.at(internal, path), codec)
   }
 
   private def listToJsArr(a: Seq[_]) = Json.arr(a: _*)
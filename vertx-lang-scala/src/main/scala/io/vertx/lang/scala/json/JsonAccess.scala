@@ -0,0 +1,144 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertx.lang.scala.json
+
+import java.util
+
+import scala.collection.{AbstractIndexedSeqView, IndexedSeqView}
+
+/**
+ * Typed access to the raw values of JsonObjects and JsonArrays, as used by [[JsObject]] and [[Json.JsArray]].
+ *
+ * Values are read from the map or list backing the JsonObject or JsonArray, nested maps and lists are only wrapped
+ * in a JsonObject or JsonArray when they are returned. Nothing is copied.
+ */
+private[json] object JsonAccess {
+
+  def field(obj: JsonObject, key: String): AnyRef = obj.getMap.get(key)
+
+  def element(arr: JsonArray, index: Int): AnyRef =
+    if (index >= 0 && index < arr.size()) arr.getList.get(index) else null
+
+  /**
+   * Walks the path through nested objects (String segments) and arrays (Int segments).
+   *
+   * @return the raw value at the end of the path, null if a segment doesn't exist
+   */
+  def at(root: AnyRef, path: Seq[Any]): AnyRef = {
+    var current = root
+    val segments = path.iterator
+    while (current != null && segments.hasNext) {
+      val segment = segments.next()
+      current = segment match {
+        case key: String => current match {
+          case obj: JsonObject => field(obj, key)
+          case map: util.Map[_, _] => map.get(key).asInstanceOf[AnyRef]
+          case _ => null
+        }
+        case index: Int => current match {
+          case arr: JsonArray => element(arr, index)
+          case list: util.List[_] => if (index >= 0 && index < list.size()) list.get(index).asInstanceOf[AnyRef] else null
+          case _ => null
+        }
+        case _ => null
+      }
+    }
+    current
+  }
+
+  /**
+   * @return the value like `JsonObject.getValue` returns it, with maps and lists wrapped
+   */
+  def wrap(raw: AnyRef): AnyRef = raw match {
+    case map: util.Map[_, _] => new JsonObject(map.asInstanceOf[util.Map[String, AnyRef]])
+    case list: util.List[_] => new JsonArray(list)
+    case other => other
+  }
+
+  def string(raw: AnyRef): Option[String] = raw match {
+    case s: String => Some(s)
+    case _ => None
+  }
+
+  def string(raw: AnyRef, default: String): String = raw match {
+    case s: String => s
+    case _ => default
+  }
+
+  def int(raw: AnyRef): Option[Int] = raw match {
+    case n: Number => Some(n.intValue())
+    case _ => None
+  }
+
+  def int(raw: AnyRef, default: Int): Int = raw match {
+    case n: Number => n.intValue()
+    case _ => default
+  }
+
+  def long(raw: AnyRef): Option[Long] = raw match {
+    case n: Number => Some(n.longValue())
+    case _ => None
+  }
+
+  def long(raw: AnyRef, default: Long): Long = raw match {
+    case n: Number => n.longValue()
+    case _ => default
+  }
+
+  def double(raw: AnyRef): Option[Double] = raw match {
+    case n: Number => Some(n.doubleValue())
+    case _ => None
+  }
+
+  def double(raw: AnyRef, default: Double): Double = raw match {
+    case n: Number => n.doubleValue()
+    case _ => default
+  }
+
+  def boolean(raw: AnyRef): Option[Boolean] = raw match {
+    case b: java.lang.Boolean => Some(b.booleanValue())
+    case _ => None
+  }
+
+  def boolean(raw: AnyRef, default: Boolean): Boolean = raw match {
+    case b: java.lang.Boolean => b.booleanValue()
+    case _ => default
+  }
+
+  def obj(raw: AnyRef): Option[JsonObject] = wrap(raw) match {
+    case obj: JsonObject => Some(obj)
+    case _ => None
+  }
+
+  def arr(raw: AnyRef): Option[JsonArray] = wrap(raw) match {
+    case arr: JsonArray => Some(arr)
+    case _ => None
+  }
+
+  def decode[T](raw: AnyRef, codec: JsonCodec[T]): Option[T] =
+    if (raw == null) None else Some(codec.fromJson(wrap(raw)))
+
+  /**
+   * A live view of the elements of the array, each element is converted when it is accessed.
+   */
+  final class ArrayView[T](arr: JsonArray, convert: AnyRef => T) extends AbstractIndexedSeqView[T] {
+    override def apply(i: Int): T = convert(wrap(arr.getList.get(i)))
+
+    override def length: Int = arr.size()
+  }
+
+  def view[T](arr: JsonArray, convert: AnyRef => T): IndexedSeqView[T] = new ArrayView(arr, convert)
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertx.lang.scala.json
+
+import io.vertx.core.Handler
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.json.DecodeException
+import io.vertx.core.parsetools.{JsonEvent, JsonEventType, JsonParser}
+import io.vertx.core.streams.ReadStream
+
+import scala.util.control.NonFatal
+
+/**
+ * Decodes the elements of a top-level JSON array while the array is being received, e.g. a large request body:
+ * {{{
+ * Json.decodeArray[Event](request).handler(event => ...)
+ * }}}
+ * Only one element is held in memory at a time, instead of the whole payload and the JsonArray parsed from it.
+ *
+ * The stream follows the demand of its consumer: once as many elements as were fetched are emitted the parser and
+ * the underlying stream of Buffers are paused, so it can be piped into a [[io.vertx.core.streams.WriteStream]] with
+ * backpressure.
+ *
+ * Content that isn't an array, or an element the codec fails to decode, fails the stream: the exception handler is
+ * called and no more elements are emitted.
+ *
+ * @param parser a Vert.x JsonParser reading the stream of Buffers
+ * @param codec  decodes each element
+ */
+class JsonArrayDecoder[T](parser: JsonParser, codec: JsonCodec[T]) extends ReadStream[T] {
+
+  private var elementHandler: Handler[T] = _
+  private var errorHandler: Handler[Throwable] = _
+  private var started = false
+  private var failed = false
+  // Elements the consumer asked for, the parser counts tokens instead
+  private var demand = Long.MaxValue
+
+  parser.objectValueMode()
+  parser.exceptionHandler(t => fail(t))
+
+  override def handler(handler: Handler[T]): JsonArrayDecoder[T] = {
+    elementHandler = handler
+    if (handler == null) parser.handler(null) else parser.handler(event => onEvent(event))
+    this
+  }
+
+  override def exceptionHandler(handler: Handler[Throwable]): JsonArrayDecoder[T] = {
+    errorHandler = handler
+    this
+  }
+
+  override def endHandler(endHandler: Handler[Void]): JsonArrayDecoder[T] = {
+    parser.endHandler(endHandler)
+    this
+  }
+
+  override def pause(): JsonArrayDecoder[T] = {
+    demand = 0
+    parser.pause()
+    this
+  }
+
+  override def resume(): JsonArrayDecoder[T] = fetch(Long.MaxValue)
+
+  override def fetch(amount: Long): JsonArrayDecoder[T] = {
+    require(amount > 0, "Fetch amount must be > 0")
+    demand = if (Long.MaxValue - demand < amount) Long.MaxValue else demand + amount
+    if (!failed) parser.resume()
+    this
+  }
+
+  private def onEvent(event: JsonEvent): Unit = if (!failed) {
+    event.`type`() match {
+      case JsonEventType.START_ARRAY if !started =>
+        started = true
+        // every element is a single event from now on, the top-level array still ends with END_ARRAY
+        parser.arrayValueMode()
+      case JsonEventType.VALUE if started =>
+        val element = try {
+          Some(codec.fromJson(event.value()))
+        } catch {
+          case NonFatal(t) =>
+            fail(t)
+            None
+        }
+        element.foreach { e =>
+          if (demand != Long.MaxValue) {
+            demand -= 1
+            if (demand == 0) parser.pause()
+          }
+          if (elementHandler != null) elementHandler.handle(e)
+        }
+      case JsonEventType.END_ARRAY if started =>
+        () // the end handler is called once the stream of Buffers ends
+      case other =>
+        fail(new DecodeException(s"Expected a top-level array but found $other"))
+    }
+  }
+
+  private def fail(t: Throwable): Unit = if (!failed) {
+    failed = true
+    parser.pause()
+    if (errorHandler != null) errorHandler.handle(t)
+  }
+}
+
+object JsonArrayDecoder {
+
+  /**
+   * Decodes the elements of the array streamed by the source.
+   */
+  def apply[T](source: ReadStream[Buffer])(implicit codec: JsonCodec[T]): JsonArrayDecoder[T] =
+    new JsonArrayDecoder[T](JsonParser.newParser(source), codec)
+}
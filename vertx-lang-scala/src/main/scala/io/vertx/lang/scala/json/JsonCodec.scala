@@ -0,0 +1,397 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertx.lang.scala.json
+
+import java.util
+
+import com.fasterxml.jackson.core.{JsonParser, JsonProcessingException, JsonToken}
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.json.DecodeException
+import io.vertx.core.json.jackson.JacksonCodec
+
+import scala.collection.Factory
+import scala.language.experimental.macros
+
+/**
+ * Encodes a `T` to JSON and decodes it from JSON, without reflection.
+ *
+ * Codecs for case classes, case objects and sealed traits are derived at compile time:
+ * {{{
+ * case class Person(name: String, age: Int, emails: Seq[String], address: Option[Address])
+ * object Person {
+ *   implicit val codec: JsonCodec[Person] = JsonCodec.derived
+ * }
+ *
+ * val buffer = JsonCodec[Person].encode(person)
+ * val decoded = JsonCodec[Person].decode(buffer)
+ * }}}
+ * A case class is encoded as an object with a field for each constructor parameter. A member of a sealed trait is
+ * encoded as an object with a single field named like its class, containing the encoded member, e.g.
+ * `{"Circle":{"radius":1.0}}`. Case objects are encoded as empty objects.
+ *
+ * An absent field or `null` decodes to None for an Option and fails for everything else. Unknown fields are
+ * skipped.
+ *
+ * Every codec has two representations. `write` and `read` stream tokens through a [[JsonWriter]] and a Jackson
+ * [[com.fasterxml.jackson.core.JsonParser]], to encode to and decode from a [[io.vertx.core.buffer.Buffer]] without
+ * building a JsonObject in between. `toJson` and `fromJson` convert to and from the values of a JsonObject.
+ */
+trait JsonCodec[T] {
+
+  /**
+   * Writes the value as a single JSON value.
+   */
+  def write(value: T, writer: JsonWriter): Unit
+
+  /**
+   * Reads a value starting at the current token of the parser, leaving the parser at the last token of the value.
+   */
+  def read(parser: JsonParser): T
+
+  /**
+   * @return the value as it would be stored in a JsonObject, e.g. a JsonObject for a case class
+   */
+  def toJson(value: T): AnyRef
+
+  /**
+   * @param json a value as returned by `JsonObject.getValue`
+   */
+  def fromJson(json: AnyRef): T
+
+  /**
+   * @return the value to use if a field of this type is missing or null, fails by default
+   */
+  def absent(field: String): T = throw new DecodeException(s"Missing field $field")
+
+  /**
+   * @return a Buffer containing the encoded value
+   */
+  def encode(value: T): Buffer = JsonWriter.write(write(value, _))
+
+  /**
+   * Decodes the value from the content of the Buffer.
+   *
+   * @throws DecodeException if the content isn't valid JSON or doesn't match the type
+   */
+  def decode(buffer: Buffer): T = {
+    val parser = JacksonCodec.createParser(buffer)
+    try {
+      parser.nextToken()
+      val value = read(parser)
+      if (parser.nextToken() != null) {
+        throw new DecodeException(s"Unexpected trailing token ${parser.currentToken()}")
+      }
+      value
+    } catch {
+      case e: JsonProcessingException => throw new DecodeException(s"Failed to decode: ${e.getMessage}", e)
+    } finally {
+      parser.close()
+    }
+  }
+
+  /**
+   * @return the value as a JsonObject
+   * @throws IllegalArgumentException if the value isn't encoded as an object
+   */
+  def toJsonObject(value: T): JsonObject = toJson(value) match {
+    case obj: JsonObject => obj
+    case other => throw new IllegalArgumentException(s"$value is not encoded as an object but as $other")
+  }
+}
+
+object JsonCodec extends CollectionCodecs {
+
+  def apply[T](implicit codec: JsonCodec[T]): JsonCodec[T] = codec
+
+  /**
+   * Derives the codec of a case class, case object or sealed trait.
+   *
+   * Codecs for the types of the fields (or members of a sealed trait) are taken from the implicit scope. Case
+   * classes and sealed traits that have no implicit codec are derived along with the codec. A recursive type needs
+   * an implicit codec defined with this method, e.g. `implicit val codec: JsonCodec[Tree] = JsonCodec.derived`.
+   */
+  def derived[T]: JsonCodec[T] = macro JsonCodecMacros.derive[T]
+
+  implicit val stringCodec: JsonCodec[String] = new JsonCodec[String] {
+    override def write(value: String, writer: JsonWriter): Unit = writer.value(value)
+
+    override def read(parser: JsonParser): String = {
+      expect(parser, JsonToken.VALUE_STRING, "a string")
+      parser.getText
+    }
+
+    override def toJson(value: String): AnyRef = value
+
+    override def fromJson(json: AnyRef): String = json match {
+      case s: String => s
+      case other => unexpected("a string", other)
+    }
+  }
+
+  implicit val booleanCodec: JsonCodec[Boolean] = new JsonCodec[Boolean] {
+    override def write(value: Boolean, writer: JsonWriter): Unit = writer.value(value)
+
+    override def read(parser: JsonParser): Boolean = parser.currentToken() match {
+      case JsonToken.VALUE_TRUE => true
+      case JsonToken.VALUE_FALSE => false
+      case other => unexpected("a boolean", other)
+    }
+
+    override def toJson(value: Boolean): AnyRef = java.lang.Boolean.valueOf(value)
+
+    override def fromJson(json: AnyRef): Boolean = json match {
+      case b: java.lang.Boolean => b
+      case other => unexpected("a boolean", other)
+    }
+  }
+
+  implicit val intCodec: JsonCodec[Int] = new JsonCodec[Int] {
+    override def write(value: Int, writer: JsonWriter): Unit = writer.value(value)
+
+    override def read(parser: JsonParser): Int = {
+      expect(parser, JsonToken.VALUE_NUMBER_INT, "an integer")
+      parser.getIntValue
+    }
+
+    override def toJson(value: Int): AnyRef = Integer.valueOf(value)
+
+    override def fromJson(json: AnyRef): Int = json match {
+      case n: Number => n.intValue()
+      case other => unexpected("an integer", other)
+    }
+  }
+
+  implicit val longCodec: JsonCodec[Long] = new JsonCodec[Long] {
+    override def write(value: Long, writer: JsonWriter): Unit = writer.value(value)
+
+    override def read(parser: JsonParser): Long = {
+      expect(parser, JsonToken.VALUE_NUMBER_INT, "an integer")
+      parser.getLongValue
+    }
+
+    override def toJson(value: Long): AnyRef = java.lang.Long.valueOf(value)
+
+    override def fromJson(json: AnyRef): Long = json match {
+      case n: Number => n.longValue()
+      case other => unexpected("an integer", other)
+    }
+  }
+
+  implicit val doubleCodec: JsonCodec[Double] = new JsonCodec[Double] {
+    override def write(value: Double, writer: JsonWriter): Unit = writer.value(value)
+
+    override def read(parser: JsonParser): Double = parser.currentToken() match {
+      case JsonToken.VALUE_NUMBER_INT | JsonToken.VALUE_NUMBER_FLOAT => parser.getDoubleValue
+      case other => unexpected("a number", other)
+    }
+
+    override def toJson(value: Double): AnyRef = java.lang.Double.valueOf(value)
+
+    override def fromJson(json: AnyRef): Double = json match {
+      case n: Number => n.doubleValue()
+      case other => unexpected("a number", other)
+    }
+  }
+
+  implicit val floatCodec: JsonCodec[Float] = new JsonCodec[Float] {
+    override def write(value: Float, writer: JsonWriter): Unit = writer.value(value)
+
+    override def read(parser: JsonParser): Float = parser.currentToken() match {
+      case JsonToken.VALUE_NUMBER_INT | JsonToken.VALUE_NUMBER_FLOAT => parser.getFloatValue
+      case other => unexpected("a number", other)
+    }
+
+    override def toJson(value: Float): AnyRef = java.lang.Float.valueOf(value)
+
+    override def fromJson(json: AnyRef): Float = json match {
+      case n: Number => n.floatValue()
+      case other => unexpected("a number", other)
+    }
+  }
+
+  implicit val jsonObjectCodec: JsonCodec[JsonObject] = new JsonCodec[JsonObject] {
+    override def write(value: JsonObject, writer: JsonWriter): Unit = writer.value(value)
+
+    override def read(parser: JsonParser): JsonObject = {
+      expect(parser, JsonToken.START_OBJECT, "an object")
+      readAny(parser).asInstanceOf[JsonObject]
+    }
+
+    override def toJson(value: JsonObject): AnyRef = value
+
+    override def fromJson(json: AnyRef): JsonObject = json match {
+      case obj: JsonObject => obj
+      case other => unexpected("an object", other)
+    }
+  }
+
+  implicit val jsonArrayCodec: JsonCodec[JsonArray] = new JsonCodec[JsonArray] {
+    override def write(value: JsonArray, writer: JsonWriter): Unit = writer.value(value)
+
+    override def read(parser: JsonParser): JsonArray = {
+      expect(parser, JsonToken.START_ARRAY, "an array")
+      readAny(parser).asInstanceOf[JsonArray]
+    }
+
+    override def toJson(value: JsonArray): AnyRef = value
+
+    override def fromJson(json: AnyRef): JsonArray = json match {
+      case arr: JsonArray => arr
+      case other => unexpected("an array", other)
+    }
+  }
+
+  implicit def optionCodec[A](implicit codec: JsonCodec[A]): JsonCodec[Option[A]] = new JsonCodec[Option[A]] {
+    override def write(value: Option[A], writer: JsonWriter): Unit = value match {
+      case Some(a) => codec.write(a, writer)
+      case None => writer.nullValue()
+    }
+
+    override def read(parser: JsonParser): Option[A] =
+      if (parser.currentToken() == JsonToken.VALUE_NULL) None else Some(codec.read(parser))
+
+    override def toJson(value: Option[A]): AnyRef = value match {
+      case Some(a) => codec.toJson(a)
+      case None => null
+    }
+
+    override def fromJson(json: AnyRef): Option[A] = if (json == null) None else Some(codec.fromJson(json))
+
+    override def absent(field: String): Option[A] = None
+  }
+
+  implicit def mapCodec[A](implicit codec: JsonCodec[A]): JsonCodec[Map[String, A]] = new JsonCodec[Map[String, A]] {
+    override def write(value: Map[String, A], writer: JsonWriter): Unit = {
+      writer.beginObject()
+      value.foreach { case (name, a) =>
+        writer.name(name)
+        codec.write(a, writer)
+      }
+      writer.endObject()
+    }
+
+    override def read(parser: JsonParser): Map[String, A] = {
+      expect(parser, JsonToken.START_OBJECT, "an object")
+      val builder = Map.newBuilder[String, A]
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        val name = parser.getCurrentName
+        parser.nextToken()
+        builder += name -> codec.read(parser)
+      }
+      builder.result()
+    }
+
+    override def toJson(value: Map[String, A]): AnyRef = {
+      val obj = new JsonObject()
+      value.foreach { case (name, a) => obj.put(name, codec.toJson(a)) }
+      obj
+    }
+
+    override def fromJson(json: AnyRef): Map[String, A] = json match {
+      case obj: JsonObject =>
+        val builder = Map.newBuilder[String, A]
+        obj.fieldNames().forEach(name => builder += name -> codec.fromJson(obj.getValue(name)))
+        builder.result()
+      case other => unexpected("an object", other)
+    }
+  }
+
+  /**
+   * Fails unless the current token of the parser is the expected one. Used by derived codecs.
+   */
+  def expect(parser: JsonParser, token: JsonToken, expected: String): Unit =
+    if (parser.currentToken() != token) {
+      unexpected(expected, parser.currentToken())
+    }
+
+  /**
+   * Fails because something else than the expected value was found. Used by derived codecs.
+   */
+  def unexpected(expected: String, found: Any): Nothing =
+    throw new DecodeException(s"Expected $expected but found $found")
+
+  /**
+   * Reads the value starting at the current token into the values of a JsonObject.
+   */
+  def readAny(parser: JsonParser): AnyRef = parser.currentToken() match {
+    case JsonToken.START_OBJECT =>
+      val map = new util.LinkedHashMap[String, AnyRef]()
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        val name = parser.getCurrentName
+        parser.nextToken()
+        map.put(name, readAny(parser))
+      }
+      new JsonObject(map)
+    case JsonToken.START_ARRAY =>
+      val list = new util.ArrayList[AnyRef]()
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        list.add(readAny(parser))
+      }
+      new JsonArray(list)
+    case JsonToken.VALUE_STRING => parser.getText
+    case JsonToken.VALUE_NUMBER_INT | JsonToken.VALUE_NUMBER_FLOAT => parser.getNumberValue
+    case JsonToken.VALUE_TRUE => java.lang.Boolean.TRUE
+    case JsonToken.VALUE_FALSE => java.lang.Boolean.FALSE
+    case JsonToken.VALUE_NULL => null
+    case other => unexpected("a value", other)
+  }
+}
+
+/**
+ * Codecs for collections, with a lower priority than the ones in [[JsonCodec]] as a Map is a collection, too.
+ */
+trait CollectionCodecs {
+
+  /**
+   * Encodes collections (e.g. Seq, List, Vector, Set) as arrays.
+   */
+  implicit def iterableCodec[C[X] <: Iterable[X], A](implicit codec: JsonCodec[A],
+                                                      factory: Factory[A, C[A]]): JsonCodec[C[A]] = new JsonCodec[C[A]] {
+    override def write(value: C[A], writer: JsonWriter): Unit = {
+      writer.beginArray()
+      value.foreach(codec.write(_, writer))
+      writer.endArray()
+    }
+
+    override def read(parser: JsonParser): C[A] = {
+      JsonCodec.expect(parser, JsonToken.START_ARRAY, "an array")
+      val builder = factory.newBuilder
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        builder += codec.read(parser)
+      }
+      builder.result()
+    }
+
+    override def toJson(value: C[A]): AnyRef = {
+      val list = new util.ArrayList[AnyRef](value.size)
+      value.foreach(a => list.add(codec.toJson(a)))
+      new JsonArray(list)
+    }
+
+    override def fromJson(json: AnyRef): C[A] = json match {
+      case arr: JsonArray =>
+        val builder = factory.newBuilder
+        builder.sizeHint(arr.size())
+        var i = 0
+        while (i < arr.size()) {
+          builder += codec.fromJson(arr.getValue(i))
+          i += 1
+        }
+        builder.result()
+      case other => JsonCodec.unexpected("an array", other)
+    }
+  }
+}
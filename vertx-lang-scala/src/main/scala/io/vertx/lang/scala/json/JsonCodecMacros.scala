@@ -0,0 +1,167 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertx.lang.scala.json
+
+import io.vertx.lang.scala.CodecMacros
+
+import scala.reflect.macros.blackbox
+
+/**
+ * Derivation of [[JsonCodec]]s, see [[JsonCodec.derived]].
+ *
+ * The type analysis is shared with the derivation of binary codecs, see [[CodecMacros]]. Fields are written as
+ * object entries named like the field, members of sealed traits as a single entry named like the member.
+ */
+class JsonCodecMacros(val c: blackbox.Context) extends CodecMacros {
+
+  import c.universe._
+
+  override protected val codecName: String = "JsonCodec"
+  override protected val codecs: Tree = q"_root_.io.vertx.lang.scala.json.JsonCodec"
+  override protected val codecType: Tree = tq"_root_.io.vertx.lang.scala.json.JsonCodec"
+  override protected def codecConstructor: Type = weakTypeOf[JsonCodec[Any]].typeConstructor
+  private val tokens = q"_root_.com.fasterxml.jackson.core.JsonToken"
+  private val writerType = tq"_root_.io.vertx.lang.scala.json.JsonWriter"
+  private val parserType = tq"_root_.com.fasterxml.jackson.core.JsonParser"
+  private val jsonObjectType = tq"_root_.io.vertx.core.json.JsonObject"
+
+  override protected def caseObjectCodec(tpe: Type, module: Symbol): Tree = {
+    q"""
+      new $codecType[$tpe] {
+        override def write(value: $tpe, writer: $writerType): _root_.scala.Unit =
+          writer.beginObject().endObject()
+
+        override def read(parser: $parserType): $tpe = {
+          $codecs.expect(parser, $tokens.START_OBJECT, "an object")
+          parser.skipChildren()
+          $module
+        }
+
+        override def toJson(value: $tpe): _root_.scala.AnyRef = new $jsonObjectType()
+
+        override def fromJson(json: _root_.scala.AnyRef): $tpe = $module
+      }
+    """
+  }
+
+  override protected def caseClassCodec(tpe: Type, fields: Seq[Field], locals: Seq[Tree]): Tree = {
+    val writes = fields.map(f => q"writer.name(${f.label}); ${f.codec}.write(value.${f.name}, writer)")
+    val puts = fields.map(f => q"json.put(${f.label}, ${f.codec}.toJson(value.${f.name}))")
+    val fromJson = fields.map { f =>
+      q"{ val v = obj.getValue(${f.label}); if (v == null) ${f.codec}.absent(${f.label}) else ${f.codec}.fromJson(v) }"
+    }
+    val values = fields.map(_ => TermName(c.freshName("value")))
+    val seen = fields.map(_ => TermName(c.freshName("seen")))
+    val vars = fields.zip(values.zip(seen)).flatMap { case (f, (v, s)) =>
+      Seq(q"var $v: ${f.tpe} = null.asInstanceOf[${f.tpe}]", q"var $s = false")
+    }
+    val cases = fields.zip(values.zip(seen)).map { case (f, (v, s)) =>
+      cq"${f.label} => $v = ${f.codec}.read(parser); $s = true"
+    }
+    val read = fields.zip(values.zip(seen)).map { case (f, (v, s)) => q"if ($s) $v else ${f.codec}.absent(${f.label})" }
+
+    q"""
+      new $codecType[$tpe] {
+        ..$locals
+        ..${codecVals(fields)}
+
+        override def write(value: $tpe, writer: $writerType): _root_.scala.Unit = {
+          writer.beginObject()
+          ..$writes
+          writer.endObject()
+        }
+
+        override def read(parser: $parserType): $tpe = {
+          $codecs.expect(parser, $tokens.START_OBJECT, "an object")
+          ..$vars
+          while (parser.nextToken() == $tokens.FIELD_NAME) {
+            val name = parser.getCurrentName
+            parser.nextToken()
+            name match {
+              case ..$cases
+              case _ => parser.skipChildren()
+            }
+          }
+          new $tpe(..$read)
+        }
+
+        override def toJson(value: $tpe): _root_.scala.AnyRef = {
+          val json = new $jsonObjectType()
+          ..$puts
+          json
+        }
+
+        override def fromJson(json: _root_.scala.AnyRef): $tpe = json match {
+          case obj: $jsonObjectType => new $tpe(..$fromJson)
+          case other => $codecs.unexpected("an object", other)
+        }
+      }
+    """
+  }
+
+  override protected def sealedCodec(tpe: Type, members: Seq[Field], locals: Seq[Tree]): Tree = {
+    val sym = tpe.typeSymbol
+    val writes = members.map(m => cq"v: ${m.tpe} => writer.name(${m.label}); ${m.codec}.write(v, writer)")
+    val puts = members.map(m => cq"v: ${m.tpe} => json.put(${m.label}, ${m.codec}.toJson(v))")
+    val reads = members.map(m => cq"${m.label} => ${m.codec}.read(parser)")
+    val fromJson = members.map(m => cq"${m.label} => ${m.codec}.fromJson(obj.getValue(name))")
+
+    q"""
+      new $codecType[$tpe] {
+        ..$locals
+        ..${codecVals(members)}
+
+        override def write(value: $tpe, writer: $writerType): _root_.scala.Unit = {
+          writer.beginObject()
+          value match { case ..$writes }
+          writer.endObject()
+        }
+
+        override def read(parser: $parserType): $tpe = {
+          $codecs.expect(parser, $tokens.START_OBJECT, "an object")
+          if (parser.nextToken() != $tokens.FIELD_NAME) {
+            $codecs.unexpected(${"a member of " + sym.name.decodedName.toString}, parser.currentToken())
+          }
+          val name = parser.getCurrentName
+          parser.nextToken()
+          val result: $tpe = name match {
+            case ..$reads
+            case other => $codecs.unexpected(${"a member of " + sym.name.decodedName.toString}, other)
+          }
+          parser.nextToken()
+          $codecs.expect(parser, $tokens.END_OBJECT, "the end of the object")
+          result
+        }
+
+        override def toJson(value: $tpe): _root_.scala.AnyRef = {
+          val json = new $jsonObjectType()
+          value match { case ..$puts }
+          json
+        }
+
+        override def fromJson(json: _root_.scala.AnyRef): $tpe = json match {
+          case obj: $jsonObjectType if obj.size() == 1 =>
+            val name = obj.fieldNames().iterator().next()
+            name match {
+              case ..$fromJson
+              case other => $codecs.unexpected(${"a member of " + sym.name.decodedName.toString}, other)
+            }
+          case other => $codecs.unexpected(${"a member of " + sym.name.decodedName.toString}, other)
+        }
+      }
+    """
+  }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertx.lang.scala.json
+
+import java.nio.charset.StandardCharsets.US_ASCII
+
+import io.netty.buffer.{ByteBuf, ByteBufUtil, Unpooled}
+import io.vertx.core.buffer.Buffer
+
+/**
+ * Writes JSON directly into a [[io.netty.buffer.ByteBuf]], without building a JsonObject or JsonArray first.
+ *
+ * Objects and arrays are written by passing a function that writes their content, so the nesting of the code
+ * follows the nesting of the JSON:
+ * {{{
+ * val buffer = Json.writeObj(_
+ *   .field("foo", "foo text")
+ *   .field("bar", 3.45d)
+ *   .arr("tags", _.value("a").value("b"))
+ *   .obj("nested", _.field("myInt", 1)))
+ * }}}
+ * Functions that don't capture anything are allocated only once, and numbers are written without boxing them, so
+ * only doubles and floats allocate (for their String representation). The output is the same as `encode()` of the
+ * equivalent JsonObject.
+ *
+ * For content that is only known at runtime the content can also be written with [[beginObject]], [[name]],
+ * [[beginArray]] and the matching `end` methods. The writer doesn't check that the written tokens form valid JSON.
+ *
+ * A writer is not thread-safe.
+ *
+ * @param out the buffer to append to
+ */
+final class JsonWriter(out: ByteBuf) {
+
+  // A value written next needs a comma in front
+  private var needsComma = false
+  // A name was just written, so the next value belongs to it
+  private var afterName = false
+
+  /**
+   * Writes an object containing what `fields` writes.
+   */
+  def obj(fields: JsonWriter => Unit): JsonWriter = {
+    beginObject()
+    fields(this)
+    endObject()
+  }
+
+  /**
+   * Writes an array containing what `elements` writes.
+   */
+  def arr(elements: JsonWriter => Unit): JsonWriter = {
+    beginArray()
+    elements(this)
+    endArray()
+  }
+
+  /**
+   * Writes a field whose value is an object containing what `fields` writes.
+   */
+  def obj(name: String, fields: JsonWriter => Unit): JsonWriter = this.name(name).obj(fields)
+
+  /**
+   * Writes a field whose value is an array containing what `elements` writes.
+   */
+  def arr(name: String, elements: JsonWriter => Unit): JsonWriter = this.name(name).arr(elements)
+
+  def field(name: String, value: String): JsonWriter = this.name(name).value(value)
+
+  def field(name: String, value: Int): JsonWriter = this.name(name).value(value)
+
+  def field(name: String, value: Long): JsonWriter = this.name(name).value(value)
+
+  def field(name: String, value: Double): JsonWriter = this.name(name).value(value)
+
+  def field(name: String, value: Float): JsonWriter = this.name(name).value(value)
+
+  def field(name: String, value: Boolean): JsonWriter = this.name(name).value(value)
+
+  def field(name: String, value: JsonObject): JsonWriter = this.name(name).value(value)
+
+  def field(name: String, value: JsonArray): JsonWriter = this.name(name).value(value)
+
+  def nullField(name: String): JsonWriter = this.name(name).nullValue()
+
+  /**
+   * Writes the value, `null` if it is null.
+   */
+  def value(value: String): JsonWriter = {
+    if (value == null) {
+      nullValue()
+    } else {
+      separate()
+      string(value)
+      this
+    }
+  }
+
+  def value(value: Int): JsonWriter = this.value(value.toLong)
+
+  def value(value: Long): JsonWriter = {
+    separate()
+    long(value)
+    this
+  }
+
+  def value(value: Double): JsonWriter = {
+    separate()
+    if (value.isNaN || value.isInfinite) string(value.toString) else ascii(java.lang.Double.toString(value))
+    this
+  }
+
+  def value(value: Float): JsonWriter = {
+    separate()
+    if (value.isNaN || value.isInfinite) string(value.toString) else ascii(java.lang.Float.toString(value))
+    this
+  }
+
+  def value(value: Boolean): JsonWriter = {
+    separate()
+    ascii(if (value) "true" else "false")
+    this
+  }
+
+  /**
+   * Writes the encoded object, `null` if it is null.
+   */
+  def value(value: JsonObject): JsonWriter =
+    if (value == null) nullValue() else encoded(value.toBuffer)
+
+  /**
+   * Writes the encoded array, `null` if it is null.
+   */
+  def value(value: JsonArray): JsonWriter =
+    if (value == null) nullValue() else encoded(value.toBuffer)
+
+  /**
+   * Writes already encoded JSON as a value, e.g. the payload of a [[LazyJsonObject]], without checking it.
+   */
+  def encoded(buffer: Buffer): JsonWriter = {
+    separate()
+    out.writeBytes(buffer.getByteBuf)
+    this
+  }
+
+  def nullValue(): JsonWriter = {
+    separate()
+    ascii("null")
+    this
+  }
+
+  def beginObject(): JsonWriter = begin('{')
+
+  def endObject(): JsonWriter = end('}')
+
+  def beginArray(): JsonWriter = begin('[')
+
+  def endArray(): JsonWriter = end(']')
+
+  /**
+   * Writes the name of a field, to be followed by its value.
+   */
+  def name(name: String): JsonWriter = {
+    separate()
+    string(name)
+    out.writeByte(':')
+    afterName = true
+    this
+  }
+
+  /**
+   * @return the buffer written to
+   */
+  def byteBuf: ByteBuf = out
+
+  private def begin(token: Char): JsonWriter = {
+    separate()
+    out.writeByte(token)
+    needsComma = false
+    this
+  }
+
+  private def end(token: Char): JsonWriter = {
+    out.writeByte(token)
+    needsComma = true
+    this
+  }
+
+  private def separate(): Unit = {
+    if (afterName) {
+      afterName = false
+    } else if (needsComma) {
+      out.writeByte(',')
+    }
+    needsComma = true
+  }
+
+  private def ascii(value: String): Unit = out.writeCharSequence(value, US_ASCII)
+
+  /**
+   * Writes the digits without creating a String, starting from the last one.
+   */
+  private def long(value: Long): Unit = {
+    if (value == Long.MinValue) {
+      ascii("-9223372036854775808")
+    } else {
+      var remaining = value
+      if (remaining < 0) {
+        out.writeByte('-')
+        remaining = -remaining
+      }
+      var digits = 1
+      var limit = 10L
+      while (digits < 19 && remaining >= limit) {
+        digits += 1
+        limit *= 10
+      }
+      out.ensureWritable(digits)
+      val start = out.writerIndex()
+      var i = start + digits - 1
+      while (i >= start) {
+        out.setByte(i, '0' + (remaining % 10).toInt)
+        remaining /= 10
+        i -= 1
+      }
+      out.writerIndex(start + digits)
+    }
+  }
+
+  /**
+   * Writes the string quoted, escaping like Jackson does by default: quotes, backslashes and control characters.
+   * Everything between two escaped characters is written as one UTF-8 chunk.
+   */
+  private def string(value: String): Unit = {
+    out.writeByte('"')
+    var chunk = 0
+    var i = 0
+    while (i < value.length) {
+      val c = value.charAt(i)
+      if (c < 0x20 || c == '"' || c == '\\') {
+        if (i > chunk) {
+          ByteBufUtil.writeUtf8(out, value, chunk, i)
+        }
+        escape(c)
+        chunk = i + 1
+      }
+      i += 1
+    }
+    if (value.length > chunk) {
+      ByteBufUtil.writeUtf8(out, value, chunk, value.length)
+    }
+    out.writeByte('"')
+  }
+
+  private def escape(c: Char): Unit = {
+    out.writeByte('\\')
+    c match {
+      case '"' => out.writeByte('"')
+      case '\\' => out.writeByte('\\')
+      case '\n' => out.writeByte('n')
+      case '\r' => out.writeByte('r')
+      case '\t' => out.writeByte('t')
+      case '\b' => out.writeByte('b')
+      case '\f' => out.writeByte('f')
+      case _ =>
+        out.writeByte('u')
+        out.writeByte('0')
+        out.writeByte('0')
+        out.writeByte(JsonWriter.HexDigits(c >> 4))
+        out.writeByte(JsonWriter.HexDigits(c & 0xF))
+    }
+  }
+}
+
+object JsonWriter {
+
+  private val HexDigits = "0123456789ABCDEF".getBytes(US_ASCII)
+
+  /**
+   * Writes into a new Buffer. The Buffer wraps the ByteBuf that was written to, so nothing is copied.
+   */
+  def write(content: JsonWriter => Unit): Buffer = {
+    val byteBuf = Unpooled.buffer()
+    content(new JsonWriter(byteBuf))
+    Buffer.buffer(byteBuf)
+  }
+
+  /**
+   * Appends to the given Buffer. A Buffer can only be appended to through its own methods, so the written JSON is
+   * copied once, prefer [[write]] for new Buffers.
+   *
+   * @return the given Buffer
+   */
+  def append(buffer: Buffer)(content: JsonWriter => Unit): Buffer = buffer.appendBuffer(write(content))
+
+  /**
+   * Creates a writer appending to the given ByteBuf.
+   */
+  def apply(byteBuf: ByteBuf): JsonWriter = new JsonWriter(byteBuf)
+}
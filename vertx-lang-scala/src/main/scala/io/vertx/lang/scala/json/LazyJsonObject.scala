@@ -0,0 +1,199 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertx.lang.scala.json
+
+import java.util
+
+import com.fasterxml.jackson.core.{JsonParser, JsonProcessingException, JsonToken}
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.json.DecodeException
+import io.vertx.core.json.jackson.JacksonCodec
+
+/**
+ * A JSON object that keeps its encoded form and only parses what is accessed, for payloads that are mostly
+ * forwarded as they are:
+ * {{{
+ * val payload = LazyJsonObject(message.body())
+ * payload.string("type") match {
+ *   case Some("order") => vertx.eventBus().send("orders", payload.buffer)
+ *   ...
+ * }
+ * }}}
+ * Each lookup streams through the bytes up to the requested value, skipping everything else without creating
+ * objects for it. Top-level fields are cached once they were looked up. A nested object is returned as another
+ * LazyJsonObject backed by a slice of the same bytes, so it can be forwarded without copying, too.
+ *
+ * The bytes are not validated up front: invalid JSON fails the lookup reaching it with a
+ * [[io.vertx.core.json.DecodeException]]. Use [[toJsonObject]] to parse the whole object, e.g. to modify it.
+ *
+ * Like a JsonObject this is not thread-safe.
+ *
+ * @param buffer the encoded object, forwarded unchanged by [[encode]] and the [[JsonCodec]] of this type
+ */
+final class LazyJsonObject(val buffer: Buffer) {
+
+  // Top-level fields looked up so far, a missing or null field is cached as Missing
+  private var fields: util.HashMap[String, AnyRef] = _
+
+  /**
+   * @return the value of the top-level field: a String, Number, Boolean, JsonArray or LazyJsonObject, None if the
+   *         field is missing or null
+   */
+  def value(name: String): Option[AnyRef] = {
+    if (fields == null) {
+      fields = new util.HashMap[String, AnyRef]()
+    }
+    val cached = fields.get(name)
+    val found = if (cached != null) cached else {
+      val read = find(Seq(name))(readValue).flatMap(Option(_)).getOrElse(LazyJsonObject.Missing)
+      fields.put(name, read)
+      read
+    }
+    if (found eq LazyJsonObject.Missing) None else Some(found)
+  }
+
+  /**
+   * Like [[value(name:String)*]] but walks nested objects (String segments) and arrays (Int segments).
+   */
+  def at(path: Any*): Option[AnyRef] = find(path)(readValue).flatMap(Option(_))
+
+  /**
+   * Decodes the value at the path directly from the bytes with its [[JsonCodec]].
+   *
+   * @return None if the path doesn't exist or the value is null
+   */
+  def get[T](path: Any*)(implicit codec: JsonCodec[T]): Option[T] =
+    find(path)(parser => if (parser.currentToken() == JsonToken.VALUE_NULL) None else Some(codec.read(parser))).flatten
+
+  def string(name: String): Option[String] = JsonAccess.string(value(name).orNull)
+
+  def int(name: String): Option[Int] = JsonAccess.int(value(name).orNull)
+
+  def long(name: String): Option[Long] = JsonAccess.long(value(name).orNull)
+
+  def double(name: String): Option[Double] = JsonAccess.double(value(name).orNull)
+
+  def boolean(name: String): Option[Boolean] = JsonAccess.boolean(value(name).orNull)
+
+  def obj(name: String): Option[LazyJsonObject] = value(name).collect { case obj: LazyJsonObject => obj }
+
+  def arr(name: String): Option[JsonArray] = value(name).collect { case arr: JsonArray => arr }
+
+  def contains(name: String): Boolean = value(name).isDefined
+
+  /**
+   * @return a new JsonObject parsed from the bytes
+   */
+  def toJsonObject: JsonObject = new JsonObject(buffer)
+
+  /**
+   * @return the original JSON
+   */
+  def encode(): String = buffer.toString()
+
+  override def toString: String = encode()
+
+  override def equals(other: Any): Boolean = other match {
+    case that: LazyJsonObject => buffer == that.buffer
+    case _ => false
+  }
+
+  override def hashCode(): Int = buffer.hashCode()
+
+  private def find[T](path: Seq[Any])(read: JsonParser => T): Option[T] = {
+    val parser = JacksonCodec.createParser(buffer)
+    try {
+      parser.nextToken()
+      if (parser.currentToken() != JsonToken.START_OBJECT) {
+        JsonCodec.unexpected("an object", parser.currentToken())
+      }
+      if (seek(parser, path.iterator)) Some(read(parser)) else None
+    } catch {
+      case e: JsonProcessingException => throw new DecodeException(s"Failed to decode: ${e.getMessage}", e)
+    } finally {
+      parser.close()
+    }
+  }
+
+  /**
+   * Moves the parser to the first token of the value at the end of the path.
+   *
+   * @return false if a segment doesn't exist
+   */
+  private def seek(parser: JsonParser, segments: Iterator[Any]): Boolean = {
+    var found = true
+    while (found && segments.hasNext) {
+      found = segments.next() match {
+        case name: String if parser.currentToken() == JsonToken.START_OBJECT =>
+          var matched = false
+          while (!matched && parser.nextToken() == JsonToken.FIELD_NAME) {
+            matched = parser.getCurrentName == name
+            parser.nextToken()
+            if (!matched) parser.skipChildren()
+          }
+          matched
+        case index: Int if parser.currentToken() == JsonToken.START_ARRAY && index >= 0 =>
+          var i = 0
+          var token = parser.nextToken()
+          while (token != JsonToken.END_ARRAY && i < index) {
+            parser.skipChildren()
+            token = parser.nextToken()
+            i += 1
+          }
+          token != JsonToken.END_ARRAY
+        case _ => false
+      }
+    }
+    found
+  }
+
+  private def readValue(parser: JsonParser): AnyRef =
+    if (parser.currentToken() == JsonToken.START_OBJECT) {
+      val start = parser.getTokenLocation.getByteOffset.toInt
+      parser.skipChildren()
+      new LazyJsonObject(buffer.slice(start, parser.getCurrentLocation.getByteOffset.toInt))
+    } else {
+      JsonCodec.readAny(parser)
+    }
+}
+
+object LazyJsonObject {
+
+  private val Missing = new AnyRef
+
+  def apply(buffer: Buffer): LazyJsonObject = new LazyJsonObject(buffer)
+
+  def apply(json: String): LazyJsonObject = new LazyJsonObject(Buffer.buffer(json))
+
+  def apply(obj: JsonObject): LazyJsonObject = new LazyJsonObject(obj.toBuffer)
+
+  /**
+   * Writes the original bytes. Reading has to parse the object to find where it ends, so prefer keeping the
+   * payload as a Buffer when decoding a case class isn't needed.
+   */
+  implicit val codec: JsonCodec[LazyJsonObject] = new JsonCodec[LazyJsonObject] {
+    override def write(value: LazyJsonObject, writer: JsonWriter): Unit = writer.encoded(value.buffer)
+
+    override def read(parser: JsonParser): LazyJsonObject =
+      LazyJsonObject(JsonCodec.jsonObjectCodec.read(parser))
+
+    override def toJson(value: LazyJsonObject): AnyRef = value.toJsonObject
+
+    override def fromJson(json: AnyRef): LazyJsonObject = LazyJsonObject(JsonCodec.jsonObjectCodec.fromJson(json))
+
+    override def encode(value: LazyJsonObject): Buffer = value.buffer
+  }
+}
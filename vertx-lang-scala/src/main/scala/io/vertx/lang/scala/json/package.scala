@@ -31,9 +31,66 @@ package object json {
 
   implicit def toJsonObject(js: JsObject): JsonObject = js.internal
 
+  /**
+   * Typed access to the fields of a JsonObject, without copying it.
+   *
+   * The getters return None (or the default) if the field is missing or has another type. The variants taking a
+   * default don't box primitives.
+   */
   implicit class JsObject(val internal: JsonObject) extends AnyVal {
     import scala.jdk.CollectionConverters._
     def asMap: Map[String, AnyRef] = internal.getMap.asScala
+
+    def string(key: String): Option[String] = JsonAccess.string(JsonAccess.field(internal, key))
+
+    def string(key: String, default: String): String = JsonAccess.string(JsonAccess.field(internal, key), default)
+
+    def int(key: String): Option[Int] = JsonAccess.int(JsonAccess.field(internal, key))
+
+    def int(key: String, default: Int): Int = JsonAccess.int(JsonAccess.field(internal, key), default)
+
+    def long(key: String): Option[Long] = JsonAccess.long(JsonAccess.field(internal, key))
+
+    def long(key: String, default: Long): Long = JsonAccess.long(JsonAccess.field(internal, key), default)
+
+    def double(key: String): Option[Double] = JsonAccess.double(JsonAccess.field(internal, key))
+
+    def double(key: String, default: Double): Double = JsonAccess.double(JsonAccess.field(internal, key), default)
+
+    def boolean(key: String): Option[Boolean] = JsonAccess.boolean(JsonAccess.field(internal, key))
+
+    def boolean(key: String, default: Boolean): Boolean = JsonAccess.boolean(JsonAccess.field(internal, key), default)
+
+    def obj(key: String): Option[JsonObject] = JsonAccess.obj(JsonAccess.field(internal, key))
+
+    def arr(key: String): Option[JsonArray] = JsonAccess.arr(JsonAccess.field(internal, key))
+
+    /**
+     * Decodes the field with its [[JsonCodec]], None if it is missing or null.
+     */
+    def get[T](key: String)(implicit codec: JsonCodec[T]): Option[T] =
+      JsonAccess.decode(JsonAccess.field(internal, key), codec)
+
+    /**
+     * Walks nested objects and arrays, e.g. `obj.at("a", "b", 3)` is the 4th element of the array in field `b` of
+     * the object in field `a`.
+     *
+     * @param path field names (Strings) and array indices (Ints)
+     * @return the value at the end of the path, None if a segment doesn't exist
+     */
+    def at(path: Any*): Option[AnyRef] = Option(JsonAccess.wrap(JsonAccess.at(internal, path)))
+
+    /**
+     * Like [[at]] but decodes the value with its [[JsonCodec]].
+     */
+    def atAs[T](path: Any*)(implicit codec: JsonCodec[T]): Option[T] =
+      JsonAccess.decode(JsonAccess.at(internal, path), codec)
+
+    /**
+     * @return the fields in their order, nested maps and lists wrapped like `getValue` does
+     */
+    def fields: Iterator[(String, AnyRef)] =
+      internal.getMap.entrySet().iterator().asScala.map(e => e.getKey -> JsonAccess.wrap(e.getValue))
   }
 
 }
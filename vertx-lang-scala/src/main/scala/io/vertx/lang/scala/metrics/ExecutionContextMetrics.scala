@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.lang.scala.metrics
+
+/**
+  * Receives measurements about the Runnables executed by a [[io.vertx.lang.scala.VertxExecutionContext]].
+  * One instance is meant to be used for a single Vert.x-context.
+  *
+  * Implementations are called from the context and must not block.
+  */
+trait ExecutionContextMetrics {
+
+  /**
+    * If false the execution context skips taking any measurements.
+    */
+  def isEnabled: Boolean = true
+
+  /**
+    * Called after a Runnable has been executed.
+    *
+    * @param inline      true if the Runnable ran directly on the context, false if it had to be scheduled onto it
+    * @param queuedNanos time between handing the Runnable to the execution context and starting it
+    * @param runNanos    time it took to run the Runnable
+    */
+  def taskExecuted(inline: Boolean, queuedNanos: Long, runNanos: Long): Unit
+
+  /**
+    * Called for every failure reported to the execution context.
+    */
+  def taskFailed(cause: Throwable): Unit = ()
+}
+
+object ExecutionContextMetrics {
+
+  /**
+    * Default used by all execution contexts, doesn't record anything.
+    */
+  val Disabled: ExecutionContextMetrics = new ExecutionContextMetrics {
+    override def isEnabled: Boolean = false
+
+    override def taskExecuted(inline: Boolean, queuedNanos: Long, runNanos: Long): Unit = ()
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.lang.scala.metrics
+
+import java.util.concurrent.TimeUnit
+
+import io.micrometer.core.instrument.{Counter, MeterRegistry, Timer}
+import io.vertx.lang.scala.onthefly.{CompilationListener, CompilationResult, CompilerPool}
+
+/**
+  * Publishes the [[io.vertx.lang.scala.onthefly.CompilationResult]]s of on-the-fly compilations to a Micrometer
+  * [[io.micrometer.core.instrument.MeterRegistry]]:
+  *  - `vertx.scala.compile.time`: timer of whole compiler runs, tagged with `outcome` being `success` or `failure`
+  *  - `vertx.scala.compile.phase.time`: timer of each compiler phase, tagged with `phase` (e.g. `parser`, `typer`,
+  *    `jvm`)
+  *  - `vertx.scala.compile.file.time`: timer of the time spent on each source, only tagged with `file` if
+  *    `tagFiles` is set, as every compiled file would add a meter that is never removed
+  *  - `vertx.scala.compile.diagnostics`: counter of reported messages, tagged with `severity`
+  *
+  * {{{
+  * CompilerPool.shared.addListener(MicrometerCompilationMetrics(registry))
+  * }}}
+  *
+  * Requires `vertx-micrometer-metrics` on the classpath.
+  *
+  * @param registry the registry to publish to
+  * @param tagFiles  whether to tag the time spent on each source with its path, only for a fixed set of sources
+  */
+class MicrometerCompilationMetrics(registry: MeterRegistry, tagFiles: Boolean) extends CompilationListener {
+
+  def this(registry: MeterRegistry) = this(registry, false)
+
+  private val succeeded = Timer.builder("vertx.scala.compile.time")
+    .description("Time it took to run the compiler")
+    .tags("outcome", "success")
+    .register(registry)
+
+  private val failed = Timer.builder("vertx.scala.compile.time")
+    .description("Time it took to run the compiler")
+    .tags("outcome", "failure")
+    .register(registry)
+
+  // Not registered with tagFiles, the tags of a meter name must not differ
+  private lazy val files = Timer.builder("vertx.scala.compile.file.time")
+    .description("Time the compiler spent on a source")
+    .register(registry)
+
+  override def compiled(result: CompilationResult): Unit = {
+    (if (result.hasErrors) failed else succeeded).record(result.duration.toNanos, TimeUnit.NANOSECONDS)
+    result.phaseDurations.foreach { case (phase, duration) =>
+      Timer.builder("vertx.scala.compile.phase.time")
+        .description("Time the compiler spent in a phase")
+        .tags("phase", phase)
+        .register(registry)
+        .record(duration.toNanos, TimeUnit.NANOSECONDS)
+    }
+    result.fileDurations.foreach { case (file, duration) =>
+      val timer = if (tagFiles) {
+        Timer.builder("vertx.scala.compile.file.time")
+          .description("Time the compiler spent on a source")
+          .tags("file", file)
+          .register(registry)
+      } else {
+        files
+      }
+      timer.record(duration.toNanos, TimeUnit.NANOSECONDS)
+    }
+    result.diagnostics.groupMapReduce(_.severity)(_ => 1)(_ + _).foreach { case (severity, count) =>
+      Counter.builder("vertx.scala.compile.diagnostics")
+        .description("Number of messages reported by the compiler")
+        .tags("severity", severity.toLowerCase)
+        .register(registry)
+        .increment(count)
+    }
+  }
+}
+
+object MicrometerCompilationMetrics {
+
+  def apply(registry: MeterRegistry): MicrometerCompilationMetrics =
+    new MicrometerCompilationMetrics(registry)
+
+  def apply(registry: MeterRegistry, tagFiles: Boolean): MicrometerCompilationMetrics =
+    new MicrometerCompilationMetrics(registry, tagFiles)
+
+  /**
+    * Publishes the runs of all compilers of the pool, by default the one shared by all scala-verticles.
+    *
+    * @return the listener, to remove it from the pool again
+    */
+  def register(registry: MeterRegistry, pool: CompilerPool = CompilerPool.shared,
+               tagFiles: Boolean = false): MicrometerCompilationMetrics = {
+    val metrics = new MicrometerCompilationMetrics(registry, tagFiles)
+    pool.addListener(metrics)
+    metrics
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+
+package io.vertx.lang.scala.metrics
+
+import java.util.concurrent.TimeUnit
+
+import io.micrometer.core.instrument.{Counter, MeterRegistry, Timer}
+import io.vertx.micrometer.MicrometerMetricsOptions
+import io.vertx.micrometer.backends.BackendRegistries
+
+/**
+  * Publishes [[ExecutionContextMetrics]] to a Micrometer [[io.micrometer.core.instrument.MeterRegistry]].
+  *
+  * All meters are tagged with `context`, so the numbers for each verticle can be told apart:
+  *  - `vertx.scala.ec.tasks`: counter of executed Runnables, additionally tagged with `dispatch` being `inline` or
+  *    `scheduled`
+  *  - `vertx.scala.ec.queue.delay`: timer (with histogram) of the time between submitting and starting a Runnable
+  *  - `vertx.scala.ec.task.time`: timer (with histogram) of the time it took to run a Runnable
+  *  - `vertx.scala.ec.failures`: counter of failures reported to the execution context
+  *
+  * Requires `vertx-micrometer-metrics` on the classpath.
+  *
+  * @param registry    the registry to publish to
+  * @param contextName value of the `context`-tag, e.g. the name of the verticle
+  */
+class MicrometerExecutionContextMetrics(registry: MeterRegistry, contextName: String) extends ExecutionContextMetrics {
+
+  private val inlineTasks = Counter.builder("vertx.scala.ec.tasks")
+    .description("Number of Runnables executed by the execution context")
+    .tags("context", contextName, "dispatch", "inline")
+    .register(registry)
+
+  private val scheduledTasks = Counter.builder("vertx.scala.ec.tasks")
+    .description("Number of Runnables executed by the execution context")
+    .tags("context", contextName, "dispatch", "scheduled")
+    .register(registry)
+
+  private val queueDelay = Timer.builder("vertx.scala.ec.queue.delay")
+    .description("Time between submitting a Runnable and running it")
+    .tags("context", contextName)
+    .publishPercentileHistogram()
+    .register(registry)
+
+  private val taskTime = Timer.builder("vertx.scala.ec.task.time")
+    .description("Time it took to run a Runnable")
+    .tags("context", contextName)
+    .publishPercentileHistogram()
+    .register(registry)
+
+  private val failures = Counter.builder("vertx.scala.ec.failures")
+    .description("Number of failures reported to the execution context")
+    .tags("context", contextName)
+    .register(registry)
+
+  override def taskExecuted(inline: Boolean, queuedNanos: Long, runNanos: Long): Unit = {
+    if (inline) inlineTasks.increment() else scheduledTasks.increment()
+    queueDelay.record(queuedNanos, TimeUnit.NANOSECONDS)
+    taskTime.record(runNanos, TimeUnit.NANOSECONDS)
+  }
+
+  override def taskFailed(cause: Throwable): Unit = failures.increment()
+}
+
+object MicrometerExecutionContextMetrics {
+
+  def apply(registry: MeterRegistry, contextName: String): MicrometerExecutionContextMetrics =
+    new MicrometerExecutionContextMetrics(registry, contextName)
+
+  /**
+    * Publishes to the registry configured through the given options, which have to be the ones Vert.x was
+    * started with.
+    *
+    * @param options     the [[io.vertx.micrometer.MicrometerMetricsOptions]] passed to the Vert.x-instance
+    * @param contextName value of the `context`-tag, e.g. the name of the verticle
+    */
+  def apply(options: MicrometerMetricsOptions, contextName: String): MicrometerExecutionContextMetrics = {
+    val registry = Option(options.getMicrometerRegistry)
+      .orElse(Option(BackendRegistries.getNow(options.getRegistryName)))
+      .getOrElse(throw new IllegalStateException(s"No MeterRegistry named ${options.getRegistryName}, are metrics enabled?"))
+    new MicrometerExecutionContextMetrics(registry, contextName)
+  }
+}
@@ -2,17 +2,27 @@ package io.vertx.lang
 
 import io.vertx.lang.scala.conv.{ScalaFuture, ScalaOption, ScalaPromise, ScalaSuccess, newPromise, scalaFutureToVertxFuture, succScalaSuccess, vertxFutureToScalaFuture}
 import io.vertx.core.{AsyncResult, DeploymentOptions, Handler, Future => VertxFuture, Promise => VertxPromise}
+import io.vertx.core.streams.ReadStream
+
+import _root_.scala.concurrent.ExecutionContext
+import _root_.scala.reflect.ClassTag
 
 package object scala {
 
   implicit class VertxFutureConverter[T](vertxFuture: VertxFuture[T]) {
     def asScala(): ScalaFuture[T] = vertxFutureToScalaFuture(vertxFuture)
+
+    def asVFuture(): VFuture[T] = VFuture(vertxFuture)
   }
 
   implicit class FutureConverter[T](future: ScalaFuture[T]) {
     def asVertx(): VertxFuture[T] = scalaFutureToVertxFuture(future)
   }
 
+  implicit class ReadStreamConverter[T](readStream: ReadStream[T]) {
+    def asStream(): streams.AsyncStream[T] = streams.AsyncStream(readStream)
+  }
+
   implicit class PromiseConverter[T](promise: ScalaPromise[T]) {
     def asVertx(): VertxPromise[T] = {
       new VertxPromise[T] {
@@ -63,6 +73,30 @@ package object scala {
       promise.future
     }
 
+    /**
+     * Like [[deployVerticle]] but creates a new verticle instance for each of the `instances` set in the options.
+     * Each instance gets its own event loop, so this is the way to scale a verticle across cores.
+     */
+    def deployVerticle(supplier: () => ScalaVerticle, options: DeploymentOptions): ScalaFuture[String] =
+      VerticleDeployment.deploy(asJava, supplier, options, options.getInstances).map(_.deploymentID)(ExecutionContext.parasitic)
+
+    /**
+     * Deploys `instances` verticles created by the supplier, by default one per available core.
+     *
+     * @return the deployment, including how long each instance took to start
+     */
+    def deployVerticleInstances(supplier: () => ScalaVerticle, options: DeploymentOptions = new DeploymentOptions(),
+                                instances: Int = Runtime.getRuntime.availableProcessors()): ScalaFuture[VerticleDeployment] =
+      VerticleDeployment.deploy(asJava, supplier, options, instances)
+
+    /**
+     * Like [[deployVerticleInstances]] but creates the instances using the no-arg constructor of `A`.
+     */
+    def deployVerticleInstances[A <: ScalaVerticle: ClassTag](options: DeploymentOptions, instances: Int): ScalaFuture[VerticleDeployment] = {
+      val clazz = implicitly[ClassTag[A]].runtimeClass
+      VerticleDeployment.deploy(asJava, () => clazz.getDeclaredConstructor().newInstance().asInstanceOf[ScalaVerticle], options, instances)
+    }
+
     /**
      * Safely execute some blocking code.
      *
@@ -70,20 +104,57 @@ package object scala {
      *
      * When the code is complete the returned Future will be completed with the result.
      *
+     * With [[BlockingMode.VirtualThread]] the code runs on a virtual thread instead and the Future is completed
+     * on the calling context.
+     *
      * @param blockingFunction function containing blocking code
      * @param ordered if true then if executeBlocking is called several times on the same context, the executions for that context will be executed serially, not in parallel. if false then they will be no ordering guarantees
+     * @param blockingMode where to run the blocking code, the worker pool is used if there is no implicit BlockingMode in scope
      * @return a Future representing the result of the blocking operation
      */
-    def executeBlockingScala[T](blockingFunction: () => T, ordered: Boolean = true): concurrent.Future[T] = {
-      val promise = concurrent.Promise[T]()
-      val h: Handler[io.vertx.core.Promise[T]] = { f => util.Try(blockingFunction()) match {
-        case util.Success(s) => f.complete(s)
-        case util.Failure(t) => f.fail(t)
-      }}
-      asJava.executeBlocking[T](h, ordered, {h:AsyncResult[T] => {if (h.succeeded()) promise.success(h.result()) else promise.failure(h.cause());()} })
-      promise.future
+    def executeBlockingScala[T](blockingFunction: () => T, ordered: Boolean = true)(implicit blockingMode: BlockingMode = BlockingMode.WorkerPool): concurrent.Future[T] = {
+      if (blockingMode == BlockingMode.VirtualThread && VirtualThreads.isSupported) {
+        VirtualThreads.executeBlocking(blockingFunction, asJava.getOrCreateContext())
+      } else {
+        val promise = concurrent.Promise[T]()
+        val h: Handler[io.vertx.core.Promise[T]] = { f => util.Try(blockingFunction()) match {
+          case util.Success(s) => f.complete(s)
+          case util.Failure(t) => f.fail(t)
+        }}
+        asJava.executeBlocking[T](h, ordered, {h:AsyncResult[T] => {if (h.succeeded()) promise.success(h.result()) else promise.failure(h.cause());()} })
+        promise.future
+      }
     }
 
+    /**
+     * Safely execute a batch of blocking functions on the worker pool, running at most `parallelism` of them at the
+     * same time. Only `parallelism` workers are submitted, each of them runs functions until the batch is done.
+     *
+     * @param blockingFunctions functions containing blocking code
+     * @param parallelism maximum number of functions running at the same time
+     * @return a Future of all results in the order of the functions, failed with the first failure
+     */
+    def executeBlockingAll[T](blockingFunctions: Iterable[() => T], parallelism: Int): concurrent.Future[Seq[T]] =
+      BulkBlocking.all(blockingFunctions, parallelism, asJava.getOrCreateContext(), worker => {
+        asJava.executeBlocking[Unit]((p: io.vertx.core.Promise[Unit]) => {worker(); p.complete()}, false)
+        ()
+      })
+
+    /**
+     * Like [[executeBlockingAll]] but emits the results in completion order. Workers stop picking up functions while
+     * `bufferSize` results are waiting to be consumed.
+     *
+     * @param blockingFunctions functions containing blocking code
+     * @param parallelism maximum number of functions running at the same time
+     * @param bufferSize maximum number of results waiting to be consumed
+     * @return a stream of the results, to be used from the calling context
+     */
+    def executeBlockingStream[T](blockingFunctions: Iterable[() => T], parallelism: Int, bufferSize: Int = 256): ReadStream[T] =
+      BulkBlocking.stream(blockingFunctions, parallelism, bufferSize, asJava.getOrCreateContext(), worker => {
+        asJava.executeBlocking[Unit]((p: io.vertx.core.Promise[Unit]) => {worker(); p.complete()}, false)
+        ()
+      })
+
 
 
     /**
@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.lang.scala.streams
+
+import io.vertx.core.Vertx
+import io.vertx.core.streams.{ReadStream, WriteStream}
+import io.vertx.lang.scala.VertxExecutionContext
+
+import scala.concurrent.{ExecutionContext, Future, Promise}
+import scala.util.control.NonFatal
+import scala.util.{Failure, Success, Try}
+
+/**
+  * Receives the elements of an [[AsyncStream]], never more than requested from its [[Subscription]].
+  */
+trait Subscriber[-T] {
+
+  def onNext(element: T): Unit
+
+  def onComplete(): Unit
+
+  def onError(cause: Throwable): Unit
+}
+
+/**
+  * Controls the flow of elements to a [[Subscriber]].
+  */
+trait Subscription {
+
+  /**
+    * Allows `n` more elements to be emitted, Long.MaxValue for an unbounded amount.
+    */
+  def request(n: Long): Unit
+
+  /**
+    * Stops the emission of elements, the subscriber isn't called anymore.
+    */
+  def cancel(): Unit
+}
+
+/**
+  * A stream of elements flowing from a [[io.vertx.core.streams.ReadStream]] through a pipeline of stages, with
+  * backpressure.
+  *
+  * Elements are only read from the source when requested: the demand of the final step travels up through the
+  * stages and reaches the ReadStream as `fetch(n)`. So a pipeline holds a bounded number of elements, no matter how
+  * fast the source is.
+  *
+  * Stages are fused: an element is pushed through all stages by plain method calls on the event loop of the source,
+  * without a Future or a queue per element and stage.
+  *
+  * {{{
+  * import io.vertx.lang.scala._
+  *
+  * request.asStream()
+  *   .map(parse)
+  *   .filter(_.valid)
+  *   .grouped(100)
+  *   .mapAsync(4)(store)
+  *   .fold(0)(_ + _.size)
+  * }}}
+  *
+  * A stream can only be run once, as it takes over the handlers of its ReadStream. Run it from the context of the
+  * ReadStream.
+  */
+abstract class AsyncStream[T] { self =>
+
+  /**
+    * Starts the stream, nothing is emitted before the subscriber requests elements.
+    */
+  def subscribe(subscriber: Subscriber[T]): Subscription
+
+  /**
+    * Applies the function to each element.
+    */
+  def map[R](f: T => R): AsyncStream[R] = via(new AsyncStream.MapStage[T, R](_, f))
+
+  /**
+    * Only emits the elements matching the predicate. A dropped element is replaced by requesting another one.
+    */
+  def filter(p: T => Boolean): AsyncStream[T] = via(new AsyncStream.FilterStage[T](_, p))
+
+  /**
+    * Emits the elements in groups of `size`, the last one possibly smaller.
+    */
+  def grouped(size: Int): AsyncStream[Seq[T]] = {
+    require(size > 0, "size must be greater than 0")
+    via(new AsyncStream.GroupedStage[T](_, size))
+  }
+
+  /**
+    * Applies the asynchronous function to each element, with at most `parallelism` of them running at the same
+    * time. Results are emitted in the order of the elements, the first failure fails the stream.
+    */
+  def mapAsync[R](parallelism: Int)(f: T => Future[R]): AsyncStream[R] = {
+    require(parallelism > 0, "parallelism must be greater than 0")
+    via(new AsyncStream.MapAsyncStage[T, R](_, parallelism, f))
+  }
+
+  /**
+    * Runs the stream, combining all elements with the function.
+    *
+    * @return the combined value, or the failure of the stream
+    */
+  def fold[R](zero: R)(f: (R, T) => R): Future[R] = {
+    val promise = Promise[R]()
+    val subscription = subscribe(new Subscriber[T] {
+      private var acc = zero
+
+      override def onNext(element: T): Unit = if (!promise.isCompleted) {
+        try {
+          acc = f(acc, element)
+        } catch {
+          case NonFatal(t) => promise.tryFailure(t)
+        }
+      }
+
+      override def onComplete(): Unit = promise.trySuccess(acc)
+
+      override def onError(cause: Throwable): Unit = promise.tryFailure(cause)
+    })
+    subscription.request(Long.MaxValue)
+    promise.future.onComplete(r => if (r.isFailure) subscription.cancel())(ExecutionContext.parasitic)
+    promise.future
+  }
+
+  /**
+    * Runs the stream, calling the function for each element.
+    */
+  def foreach(f: T => Unit): Future[Unit] = fold(())((_, t) => f(t))
+
+  /**
+    * Runs the stream, writing all elements to the WriteStream and ending it when the stream completes.
+    *
+    * At most `prefetch` elements are requested ahead, and no more are requested while the write queue of the
+    * WriteStream is full. Requests resume from its drain handler.
+    *
+    * @return completed once the WriteStream ended, failed with the failure of either stream
+    */
+  def pipeTo(writeStream: WriteStream[T], prefetch: Int = 16): Future[Unit] = {
+    require(prefetch > 0, "prefetch must be greater than 0")
+    val promise = Promise[Unit]()
+    val pipe = new AsyncStream.PipeSubscriber[T](writeStream, prefetch, promise)
+    pipe.start(subscribe(pipe))
+    promise.future
+  }
+
+  private def via[R](stage: Subscriber[R] => AsyncStream.Stage[T, R]): AsyncStream[R] = new AsyncStream[R] {
+    override def subscribe(subscriber: Subscriber[R]): Subscription = {
+      val s = stage(subscriber)
+      s.upstream = self.subscribe(s)
+      s
+    }
+  }
+}
+
+object AsyncStream {
+
+  /**
+    * @return a stream of the elements of the ReadStream
+    */
+  def apply[T](readStream: ReadStream[T]): AsyncStream[T] = new AsyncStream[T] {
+    override def subscribe(subscriber: Subscriber[T]): Subscription = {
+      readStream.pause()
+      readStream.exceptionHandler(t => subscriber.onError(t))
+      readStream.endHandler(_ => subscriber.onComplete())
+      readStream.handler(t => subscriber.onNext(t))
+      new Subscription {
+        override def request(n: Long): Unit = readStream.fetch(n)
+
+        override def cancel(): Unit = {
+          readStream.pause()
+          readStream.handler(null)
+        }
+      }
+    }
+  }
+
+  private[streams] def addDemand(demand: Long, n: Long): Long = {
+    val sum = demand + n
+    if (sum < 0) Long.MaxValue else sum
+  }
+
+  /**
+    * A stage of the pipeline, a Subscriber to the stage before and the Subscription of the stage after it.
+    * Requests are passed through by default.
+    */
+  private[streams] abstract class Stage[T, R](downstream: Subscriber[R]) extends Subscriber[T] with Subscription {
+
+    var upstream: Subscription = _
+    protected var done = false
+
+    override def request(n: Long): Unit = upstream.request(n)
+
+    override def cancel(): Unit = {
+      done = true
+      upstream.cancel()
+    }
+
+    override def onComplete(): Unit = if (!done) {
+      done = true
+      downstream.onComplete()
+    }
+
+    override def onError(cause: Throwable): Unit = if (!done) {
+      done = true
+      downstream.onError(cause)
+    }
+
+    protected def fail(cause: Throwable): Unit = if (!done) {
+      upstream.cancel()
+      done = true
+      downstream.onError(cause)
+    }
+  }
+
+  private[streams] final class MapStage[T, R](downstream: Subscriber[R], f: T => R) extends Stage[T, R](downstream) {
+    override def onNext(element: T): Unit = if (!done) {
+      val result = try f(element) catch {
+        case NonFatal(t) =>
+          fail(t)
+          return
+      }
+      downstream.onNext(result)
+    }
+  }
+
+  private[streams] final class FilterStage[T](downstream: Subscriber[T], p: T => Boolean) extends Stage[T, T](downstream) {
+    override def onNext(element: T): Unit = if (!done) {
+      val matches = try p(element) catch {
+        case NonFatal(t) =>
+          fail(t)
+          return
+      }
+      if (matches) downstream.onNext(element) else upstream.request(1)
+    }
+  }
+
+  private[streams] final class GroupedStage[T](downstream: Subscriber[Seq[T]], size: Int) extends Stage[T, Seq[T]](downstream) {
+    private var group = Vector.newBuilder[T]
+    private var count = 0
+
+    override def request(n: Long): Unit =
+      upstream.request(if (n > Long.MaxValue / size) Long.MaxValue else n * size)
+
+    override def onNext(element: T): Unit = if (!done) {
+      group += element
+      count += 1
+      if (count == size) {
+        emit()
+      }
+    }
+
+    override def onComplete(): Unit = if (!done) {
+      if (count > 0) {
+        emit()
+      }
+      super.onComplete()
+    }
+
+    private def emit(): Unit = {
+      val full = group.result()
+      group = Vector.newBuilder[T]
+      count = 0
+      downstream.onNext(full)
+    }
+  }
+
+  /**
+    * Keeps the results of the running functions in a ring of `parallelism` slots, in the order of the elements.
+    * Results are handled on the context the stream was started from.
+    */
+  private[streams] final class MapAsyncStage[T, R](downstream: Subscriber[R], parallelism: Int, f: T => Future[R])
+    extends Stage[T, R](downstream) {
+
+    private val ec: ExecutionContext = Option(Vertx.currentContext())
+      .map(ctx => VertxExecutionContext(ctx.owner(), ctx): ExecutionContext)
+      .getOrElse(ExecutionContext.parasitic)
+    private val results = new Array[Try[R]](parallelism)
+    private var head = 0
+    private var running = 0
+    private var requested = 0L
+    private var demand = 0L
+    private var upstreamDone = false
+    private var draining = false
+    private var again = false
+
+    override def request(n: Long): Unit = {
+      demand = addDemand(demand, n)
+      drain()
+    }
+
+    override def onNext(element: T): Unit = if (!done) {
+      requested -= 1
+      val slot = (head + running) % parallelism
+      running += 1
+      val future = try f(element) catch {
+        case NonFatal(t) => Future.failed(t)
+      }
+      future.value match {
+        case Some(result) => results(slot) = result
+        case None => future.onComplete { result =>
+          results(slot) = result
+          drain()
+        }(ec)
+      }
+      drain()
+    }
+
+    override def onComplete(): Unit = {
+      upstreamDone = true
+      drain()
+    }
+
+    // Elements and results can arrive while draining, e.g. from upstream.request, another round handles them
+    private def drain(): Unit = if (draining) {
+      again = true
+    } else {
+      draining = true
+      try {
+        again = true
+        while (again) {
+          again = false
+          while (!done && demand > 0 && running > 0 && results(head) != null) {
+            val result = results(head)
+            results(head) = null
+            head = (head + 1) % parallelism
+            running -= 1
+            result match {
+              case Success(r) =>
+                if (demand != Long.MaxValue) {
+                  demand -= 1
+                }
+                downstream.onNext(r)
+              case Failure(t) => fail(t)
+            }
+          }
+          if (!done) {
+            if (upstreamDone && running == 0) {
+              super.onComplete()
+            } else if (!upstreamDone && running + requested < parallelism) {
+              val n = parallelism - running - requested
+              requested += n
+              upstream.request(n)
+            }
+          }
+        }
+      } finally {
+        draining = false
+      }
+    }
+  }
+
+  private[streams] final class PipeSubscriber[T](writeStream: WriteStream[T], prefetch: Int, promise: Promise[Unit])
+    extends Subscriber[T] {
+
+    private var subscription: Subscription = _
+    private var outstanding = 0L
+
+    def start(subscription: Subscription): Unit = {
+      this.subscription = subscription
+      writeStream.exceptionHandler(t => {
+        subscription.cancel()
+        promise.tryFailure(t)
+      })
+      requestMore()
+    }
+
+    private def requestMore(): Unit = if (!promise.isCompleted) {
+      if (writeStream.writeQueueFull()) {
+        writeStream.drainHandler(_ => requestMore())
+      } else if (outstanding < prefetch) {
+        val n = prefetch - outstanding
+        outstanding += n
+        subscription.request(n)
+      }
+    }
+
+    override def onNext(element: T): Unit = if (!promise.isCompleted) {
+      outstanding -= 1
+      writeStream.write(element)
+      if (outstanding <= prefetch / 2) {
+        requestMore()
+      }
+    }
+
+    override def onComplete(): Unit = if (!promise.isCompleted) {
+      writeStream.end().onComplete(ar => if (ar.succeeded()) promise.trySuccess(()) else promise.tryFailure(ar.cause()))
+    }
+
+    override def onError(cause: Throwable): Unit = promise.tryFailure(cause)
+  }
+}
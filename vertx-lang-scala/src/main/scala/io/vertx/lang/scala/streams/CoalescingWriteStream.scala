@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2011-2016 The original author or authors
+ * ------------------------------------------------------
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ *
+ *     The Eclipse Public License is available at
+ *     http://www.eclipse.org/legal/epl-v10.html
+ *
+ *     The Apache License v2.0 is available at
+ *     http://www.opensource.org/licenses/apache2.0.php
+ *
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.lang.scala.streams
+
+import io.netty.buffer.{ByteBuf, CompositeByteBuf, Unpooled}
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.streams.WriteStream
+import io.vertx.core.{AsyncResult, Future, Handler, Promise, Vertx}
+
+/**
+  * Coalesces the Buffers written to it into fewer, larger writes to the underlying WriteStream, e.g. many small
+  * chunks into one write (and flush) of a socket.
+  *
+  * Written Buffers are collected until `maxBytes` are pending or `maxDelay` milliseconds passed since the first
+  * pending one, then they are written as one Buffer. With a `maxDelay` of 0 the pending Buffers are written once the
+  * current task of the context is done, coalescing everything written in one go.
+  *
+  * Buffers of at least `copyThreshold` bytes are not copied but become components of a composite ByteBuf. Smaller
+  * ones are copied into a shared chunk, as a component per tiny Buffer costs more than copying it.
+  *
+  * Backpressure is the one of the underlying WriteStream: `writeQueueFull` and the drain handler are delegated, so
+  * it can be used with `pipeTo`, `Pump` or [[AsyncStream.pipeTo]]. The Future returned by a write completes with
+  * the write it was coalesced into.
+  *
+  * Like any WriteStream it has to be used from a single context.
+  *
+  * {{{
+  * file.pipeTo(CoalescingWriteStream(vertx, socket))
+  * }}}
+  *
+  * @param vertx         used for the `maxDelay` timer
+  * @param delegate      the stream to write to
+  * @param maxBytes      pending bytes that trigger a write
+  * @param maxDelay      milliseconds a Buffer waits at most for others to be coalesced with
+  * @param copyThreshold Buffers smaller than this are copied instead of being referenced
+  */
+class CoalescingWriteStream(vertx: Vertx, delegate: WriteStream[Buffer], maxBytes: Int, maxDelay: Long,
+                            copyThreshold: Int) extends WriteStream[Buffer] {
+
+  require(maxBytes > 0, "maxBytes must be greater than 0")
+  require(maxDelay >= 0, "maxDelay must not be negative")
+
+  private var pending: CompositeByteBuf = _
+  private var chunk: ByteBuf = _
+  private var pendingBytes = 0
+  private var pendingWrite: Promise[Void] = _
+  private var timerID = -1L
+  private var flushScheduled = false
+
+  override def write(data: Buffer): Future[Void] = {
+    val bytes = data.length()
+    if (pendingWrite == null) {
+      pendingWrite = Promise.promise()
+      pending = Unpooled.compositeBuffer(Int.MaxValue)
+      scheduleFlush()
+    }
+    val written = pendingWrite.future()
+    if (bytes < copyThreshold) {
+      if (chunk == null || chunk.writableBytes() < bytes) {
+        addChunk()
+        chunk = Unpooled.buffer(math.max(copyThreshold, math.min(maxBytes, 8192)))
+      }
+      chunk.writeBytes(data.getByteBuf)
+    } else {
+      addChunk()
+      pending.addComponent(true, data.getByteBuf)
+    }
+    pendingBytes += bytes
+    if (pendingBytes >= maxBytes) {
+      flush()
+    }
+    written
+  }
+
+  override def write(data: Buffer, handler: Handler[AsyncResult[Void]]): Unit = {
+    val written = write(data)
+    if (handler != null) {
+      written.onComplete(handler)
+    }
+  }
+
+  /**
+    * Writes the pending Buffers now.
+    */
+  def flush(): Unit = if (pendingWrite != null) {
+    addChunk()
+    if (timerID != -1L) {
+      vertx.cancelTimer(timerID)
+      timerID = -1L
+    }
+    val buffer = if (pending.numComponents() == 1) pending.component(0) else pending
+    val promise = pendingWrite
+    pending = null
+    pendingBytes = 0
+    pendingWrite = null
+    delegate.write(Buffer.buffer(buffer)).onComplete(promise)
+  }
+
+  override def end(handler: Handler[AsyncResult[Void]]): Unit = {
+    flush()
+    val ended = delegate.end()
+    if (handler != null) {
+      ended.onComplete(handler)
+    }
+  }
+
+  override def exceptionHandler(handler: Handler[Throwable]): CoalescingWriteStream = {
+    delegate.exceptionHandler(handler)
+    this
+  }
+
+  override def setWriteQueueMaxSize(maxSize: Int): CoalescingWriteStream = {
+    delegate.setWriteQueueMaxSize(maxSize)
+    this
+  }
+
+  override def writeQueueFull(): Boolean = delegate.writeQueueFull()
+
+  override def drainHandler(handler: Handler[Void]): CoalescingWriteStream = {
+    delegate.drainHandler(handler)
+    this
+  }
+
+  private def addChunk(): Unit = if (chunk != null) {
+    if (chunk.isReadable) {
+      pending.addComponent(true, chunk)
+    } else {
+      chunk.release()
+    }
+    chunk = null
+  }
+
+  private def scheduleFlush(): Unit =
+    if (maxDelay > 0) {
+      timerID = vertx.setTimer(maxDelay, _ => {
+        timerID = -1L
+        flush()
+      })
+    } else if (!flushScheduled) {
+      flushScheduled = true
+      vertx.getOrCreateContext().runOnContext(_ => {
+        flushScheduled = false
+        flush()
+      })
+    }
+}
+
+object CoalescingWriteStream {
+
+  /**
+    * @return a stream coalescing up to 64 KiB for at most 5 milliseconds, copying Buffers smaller than 512 bytes
+    */
+  def apply(vertx: Vertx, delegate: WriteStream[Buffer], maxBytes: Int = 64 * 1024, maxDelay: Long = 5,
+            copyThreshold: Int = 512): CoalescingWriteStream =
+    new CoalescingWriteStream(vertx, delegate, maxBytes, maxDelay, copyThreshold)
+}
@@ -0,0 +1,51 @@
+package io.vertx.lang.scala
+
+import io.vertx.core.Vertx
+import org.scalatest.flatspec.AsyncFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.concurrent.{ExecutionContext, Future, Promise}
+
+class BatchingVertxExecutionContextTest extends AsyncFlatSpec with Matchers {
+
+  "A chain of callbacks completed from a foreign thread" should "run on the context" in {
+    val vertx = Vertx.vertx
+    val ctx = vertx.getOrCreateContext()
+    val exec = BatchingVertxExecutionContext(vertx, ctx)
+    val promise = Promise[Int]()
+
+    val chain = (1 to 20).foldLeft(promise.future)((f, _) => f.map(i => {
+      assert(Vertx.currentContext() eq ctx)
+      i + 1
+    })(exec))
+    Future(promise.success(0))(ExecutionContext.global)
+
+    chain.map(_ should equal(20))
+  }
+
+  "A deep chain of callbacks on the context" should "not blow the stack" in {
+    val vertx = Vertx.vertx
+    val ctx = vertx.getOrCreateContext()
+    val exec = BatchingVertxExecutionContext(vertx, ctx, 16)
+    val result = Promise[Int]()
+
+    def loop(i: Int): Unit =
+      if (i == 100000) result.success(i)
+      else exec.execute(() => loop(i + 1))
+
+    ctx.runOnContext(_ => loop(0))
+    result.future.map(_ should equal(100000))
+  }
+
+  "A failing Runnable" should "not prevent the following ones from running" in {
+    val vertx = Vertx.vertx
+    val ctx = vertx.getOrCreateContext()
+    val exec = new BatchingVertxExecutionContext(vertx, ctx, 8) {
+      override def reportFailure(cause: Throwable): Unit = ()
+    }
+    val promise = Promise[String]()
+    exec.execute(() => throw new RuntimeException("boom"))
+    exec.execute(() => promise.success("ran"))
+    promise.future.map(_ should equal("ran"))
+  }
+}
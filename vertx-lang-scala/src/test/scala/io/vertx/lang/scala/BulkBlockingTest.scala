@@ -0,0 +1,56 @@
+package io.vertx.lang.scala
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import io.vertx.core.Vertx
+import org.scalatest.flatspec.AsyncFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.collection.mutable
+import scala.concurrent.Promise
+
+class BulkBlockingTest extends AsyncFlatSpec with Matchers {
+
+  "executeBlockingAll" should "return all results in order" in {
+    val vertx = Vertx.vertx
+    val functions = (1 to 10000).map(i => () => i * 2)
+    vertx.executeBlockingAll(functions, 4).map(_ should equal((1 to 10000).map(_ * 2)))
+  }
+
+  it should "not run more functions in parallel than allowed" in {
+    val vertx = Vertx.vertx
+    val running = new AtomicInteger()
+    val maxRunning = new AtomicInteger()
+    val functions = (1 to 100).map(_ => () => {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), math.max)
+      Thread.sleep(1)
+      running.decrementAndGet()
+    })
+    vertx.executeBlockingAll(functions, 3).map(_ => maxRunning.get() should be <= 3)
+  }
+
+  it should "fail with the first failure" in {
+    val vertx = Vertx.vertx
+    val functions = Seq(() => 1, () => throw new IllegalStateException("failed"), () => 3)
+    vertx.executeBlockingAll(functions, 1).failed.map(_.getMessage should equal("failed"))
+  }
+
+  "executeBlockingStream" should "emit all results and respect the demand" in {
+    val vertx = Vertx.vertx
+    val ctx = vertx.getOrCreateContext()
+    val received = mutable.Buffer[Int]()
+    val done = Promise[Seq[Int]]()
+    ctx.runOnContext(_ => {
+      val stream = vertx.executeBlockingStream((1 to 1000).map(i => () => i), parallelism = 4, bufferSize = 8)
+      stream.pause()
+      stream.handler(i => {
+        assert(Vertx.currentContext() eq ctx)
+        received += i
+        stream.fetch(1)
+      })
+      stream.endHandler(_ => done.success(received.toSeq))
+      stream.fetch(1)
+    })
+    done.future.map(_.sorted should equal(1 to 1000))
+  }
+}
@@ -0,0 +1,53 @@
+package io.vertx.lang.scala
+
+import java.util.concurrent.{CountDownLatch, RejectedExecutionException, TimeUnit}
+
+import io.vertx.core.Vertx
+import org.scalatest.flatspec.AsyncFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.collection.mutable
+import scala.concurrent.Future
+
+class KeyedBlockingExecutorTest extends AsyncFlatSpec with Matchers {
+
+  "Blocking calls with the same key" should "run in the order they were submitted" in {
+    val vertx = Vertx.vertx
+    val executor = KeyedBlockingExecutor(vertx)
+    val executed = mutable.Buffer[Int]()
+    val futures = (1 to 20).map(i => executor.executeBlocking("key", () => {
+      Thread.sleep(1)
+      executed.synchronized(executed += i)
+      i
+    }))
+    Future.sequence(futures).map(results => {
+      results should equal(1 to 20)
+      executed should equal(1 to 20)
+    })
+  }
+
+  "Blocking calls with different keys" should "run in parallel" in {
+    val vertx = Vertx.vertx
+    val executor = KeyedBlockingExecutor(vertx, parallelism = 2)
+    val bothStarted = new CountDownLatch(2)
+    val futures = Seq("a", "b").map(key => executor.executeBlocking(key, () => {
+      bothStarted.countDown()
+      bothStarted.await(5, TimeUnit.SECONDS)
+    }))
+    Future.sequence(futures).map(_ should equal(Seq(true, true)))
+  }
+
+  "Blocking calls exceeding the limit per key" should "be rejected" in {
+    val vertx = Vertx.vertx
+    val executor = KeyedBlockingExecutor(vertx, maxInFlightPerKey = 1)
+    val release = new CountDownLatch(1)
+    val first = executor.executeBlocking("key", () => release.await(5, TimeUnit.SECONDS))
+    val rejected = executor.executeBlocking("key", () => true)
+    val otherKey = executor.executeBlocking("other", () => true)
+    rejected.failed.flatMap(t => {
+      t shouldBe a[RejectedExecutionException]
+      release.countDown()
+      first.zip(otherKey)
+    }).map(_ => executor.inFlightCount should equal(0))
+  }
+}
@@ -0,0 +1,44 @@
+package io.vertx.lang.scala
+
+import java.io.File
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+
+import io.vertx.core.Vertx
+import org.scalatest.flatspec.AsyncFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+class ScalaVerticleReloaderTest extends AsyncFlatSpec with Matchers {
+
+  "A changed Scala-Verticle" should "be redeployed by reload" in {
+    val vertx = Vertx.vertx()
+    val dir = Files.createTempDirectory("reload").toFile
+    val source = new File(dir, "ReloadedVerticle.scala")
+    write(source, "v1")
+    val reloader = new ScalaVerticleReloader(vertx)
+    val versions = vertx.sharedData().getLocalMap[String, String]("reload")
+
+    for {
+      deploymentID <- reloader.deploy(s"scala:${source.getPath}")
+      started <- {
+        versions.get("version") shouldBe "v1"
+        write(source, "v2")
+        source.setLastModified(source.lastModified() + 1000)
+        reloader.reload()
+      }
+      unchanged <- reloader.reload()
+    } yield {
+      started.keySet shouldBe Set(deploymentID)
+      reloader.deploymentIDs shouldBe Seq(started(deploymentID))
+      vertx.deploymentIDs() should contain only started(deploymentID)
+      versions.get("version") shouldBe "v2"
+      unchanged shouldBe empty
+    }
+  }
+
+  private def write(file: File, version: String): Unit =
+    Files.write(file.toPath, (
+      "class ReloadedVerticle extends io.vertx.lang.scala.ScalaVerticle {\n" +
+      s"  override def start(): Unit = vertx.sharedData().getLocalMap[String, String](\"reload\").put(\"version\", \"$version\")\n" +
+      "}").getBytes(StandardCharsets.UTF_8))
+}
@@ -0,0 +1,55 @@
+package io.vertx.lang.scala
+
+import io.vertx.core.{Vertx, Promise => VertxPromise}
+import org.scalatest.flatspec.AsyncFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.util.{Failure, Success}
+
+class VFutureTest extends AsyncFlatSpec with Matchers {
+
+  "A for-comprehension over VFutures" should "combine the results" in {
+    val p1 = VertxPromise.promise[Int]()
+    val p2 = VertxPromise.promise[String]()
+    val result = for {
+      i <- VFuture(p1.future())
+      s <- VFuture(p2.future())
+      if i > 0
+    } yield s * i
+    p1.complete(3)
+    p2.complete("a")
+    result.value should equal(Some(Success("aaa")))
+  }
+
+  "A VFuture" should "run its callbacks on the context of the underlying future" in {
+    val vertx = Vertx.vertx
+    val ctx = vertx.getOrCreateContext()
+    val result = concurrent.Promise[Boolean]()
+    ctx.runOnContext(_ => {
+      vertx.executeBlocking[Int](p => p.complete(1)).asVFuture()
+        .map(_ + 1)
+        .flatMap(i => VFuture.successful(i + 1))
+        .foreach(_ => result.success(Vertx.currentContext() eq ctx))
+    })
+    result.future.map(_ should be(true))
+  }
+
+  "A failed VFuture" should "be recoverable" in {
+    val failure = new IllegalStateException("failed")
+    VFuture.failed[Int](failure).recover { case _: IllegalStateException => 1 }.value should equal(Some(Success(1)))
+    VFuture.failed[Int](failure).recover { case _: IllegalArgumentException => 1 }.value should equal(Some(Failure(failure)))
+    VFuture.failed[Int](failure).recoverWith { case _ => VFuture.successful(2) }.value should equal(Some(Success(2)))
+  }
+
+  "Zipping two VFutures" should "wait for both results" in {
+    val p1 = VertxPromise.promise[Int]()
+    val zipped = VFuture(p1.future()).zip(VFuture.successful("a"))
+    zipped.isCompleted should be(false)
+    p1.complete(1)
+    zipped.asScala().map(_ should equal((1, "a")))
+  }
+
+  "A filtered VFuture" should "fail if the predicate doesn't hold" in {
+    VFuture.successful(1).filter(_ > 1).value.get shouldBe a[Failure[_]]
+  }
+}
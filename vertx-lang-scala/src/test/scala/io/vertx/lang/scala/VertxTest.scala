@@ -1,6 +1,6 @@
 package io.vertx.lang.scala
 
-import io.vertx.core.{DeploymentOptions, Vertx}
+import io.vertx.core.{DeploymentOptions, Vertx, VertxOptions}
 import org.scalatest.flatspec.AnyFlatSpec
 import org.scalatest.concurrent.PatienceConfiguration.Timeout
 import org.scalatest.concurrent.Waiters.{Waiter, _}
@@ -26,6 +26,25 @@ class VertxTest extends AnyFlatSpec with Matchers {
     waiter.await(Timeout(Span(1100, Millis)), dismissals(1))
   }
 
+  "Vert.x executeBlocking on a virtual thread" should "run on a virtual thread and complete on the calling context" in {
+    assume(VirtualThreads.isSupported, "virtual threads are not supported by this JDK")
+    val vertx = Vertx.vertx
+    val ctx = vertx.getOrCreateContext()
+    implicit val exec = VertxExecutionContext(vertx, ctx)
+    implicit val mode: BlockingMode = BlockingMode.VirtualThread
+    val waiter = new Waiter()
+    ctx.runOnContext(_ => {
+      vertx.executeBlockingScala[Boolean](() =>
+        classOf[Thread].getMethod("isVirtual").invoke(Thread.currentThread()).asInstanceOf[Boolean])
+        .onComplete(s => {
+          waiter { assert(s.get) }
+          waiter { assert(Vertx.currentContext() eq ctx) }
+          waiter.dismiss()
+        })
+    })
+    waiter.await(dismissals(1))
+  }
+
   "Vert.x" should "deploy a preinstantiated ScalaVerticle with DefaultOptions" in {
     val vertx = Vertx.vertx()
     val waiter = new Waiter()
@@ -89,4 +108,22 @@ class VertxTest extends AnyFlatSpec with Matchers {
     futureWaiter.await(dismissals(1))
     waiter.await(dismissals(1))
   }
+
+  "Vert.x" should "deploy one ScalaVerticle instance per event loop" in {
+    val vertx = Vertx.vertx()
+    implicit val ctx = VertxExecutionContext(vertx, vertx.getOrCreateContext())
+    val threads = java.util.concurrent.ConcurrentHashMap.newKeySet[String]()
+    val waiter = new Waiter()
+
+    vertx.deployVerticleInstances(() => new ScalaVerticle {
+      override def start(): Unit = threads.add(Thread.currentThread().getName)
+    }, instances = 4).onComplete {
+      case Success(deployment) =>
+        waiter { assert(deployment.startupTimes.size == 4) }
+        waiter { assert(threads.size() == math.min(4, VertxOptions.DEFAULT_EVENT_LOOP_POOL_SIZE)) }
+        waiter.dismiss()
+      case Failure(t) => waiter { throw t }
+    }
+    waiter.await(dismissals(1))
+  }
 }
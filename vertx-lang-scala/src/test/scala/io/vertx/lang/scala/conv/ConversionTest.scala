@@ -0,0 +1,43 @@
+package io.vertx.lang.scala.conv
+
+import io.vertx.core.{Vertx, Future => VertxFuture, Promise => VertxPromise}
+import org.scalatest.flatspec.AsyncFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.concurrent.{ExecutionContext, Future, Promise}
+import scala.util.{Failure, Success}
+
+class ConversionTest extends AsyncFlatSpec with Matchers {
+
+  "An already completed Vert.x-Future" should "be converted into a completed Scala-Future" in {
+    vertxFutureToScalaFuture(VertxFuture.succeededFuture("done")).value should equal(Some(Success("done")))
+    val failure = new RuntimeException("failed")
+    vertxFutureToScalaFuture(VertxFuture.failedFuture[String](failure)).value should equal(Some(Failure(failure)))
+  }
+
+  "A pending Vert.x-Future" should "complete the Scala-Future once it completes" in {
+    val promise = VertxPromise.promise[String]()
+    val future = vertxFutureToScalaFuture(promise.future())
+    future.isCompleted should be(false)
+    promise.complete("done")
+    future.map(_ should equal("done"))
+  }
+
+  "A pending Scala-Future" should "complete the Vert.x-Future on the context it was converted on" in {
+    val vertx = Vertx.vertx
+    val ctx = vertx.getOrCreateContext()
+    val scalaPromise = Promise[String]()
+    val result = Promise[Boolean]()
+    ctx.runOnContext(_ => {
+      scalaFutureToVertxFuture(scalaPromise.future)
+        .onComplete(_ => result.success(Vertx.currentContext() eq ctx))
+      Future(scalaPromise.success("done"))(ExecutionContext.global)
+    })
+    result.future.map(_ should be(true))
+  }
+
+  "A failed Scala-Future" should "be converted into a failed Vert.x-Future" in {
+    val failure = new RuntimeException("failed")
+    scalaFutureToVertxFuture(Future.failed[String](failure)).cause() should be(failure)
+  }
+}
@@ -0,0 +1,60 @@
+package io.vertx.lang.scala.conv
+
+import io.vertx.core.{Promise => VertxPromise}
+
+import scala.concurrent.duration.Duration
+import scala.concurrent.{Await, Promise}
+import scala.jdk.FutureConverters._
+
+/**
+  * Compares the direct Future-conversions from the conv-package with the conversion through
+  * [[java.util.concurrent.CompletionStage]] they replaced.
+  *
+  * Run the main-method from the IDE or via `scala -cp ... io.vertx.lang.scala.conv.FutureConversionBenchmark [rounds] [iterations]`.
+  */
+object FutureConversionBenchmark {
+
+  def main(args: Array[String]): Unit = {
+    val rounds = args.headOption.map(_.toInt).getOrElse(10)
+    val iterations = args.drop(1).headOption.map(_.toInt).getOrElse(100000)
+    (1 to rounds).foreach { round =>
+      report(round, iterations, "vertx -> scala (CompletionStage)",
+        vertxToScala(iterations, p => p.future().toCompletionStage.asScala))
+      report(round, iterations, "vertx -> scala (direct)", vertxToScala(iterations, p => vertxFutureToScalaFuture(p.future())))
+      report(round, iterations, "scala -> vertx (CompletionStage)",
+        scalaToVertx(iterations, p => io.vertx.core.Future.fromCompletionStage(p.future.asJava)))
+      report(round, iterations, "scala -> vertx (direct)", scalaToVertx(iterations, p => scalaFutureToVertxFuture(p.future)))
+    }
+  }
+
+  private def vertxToScala(iterations: Int, convert: VertxPromise[Integer] => ScalaFuture[Integer]): Long = {
+    val start = System.nanoTime()
+    var i = 0
+    var last: ScalaFuture[Integer] = null
+    while (i < iterations) {
+      val promise = VertxPromise.promise[Integer]()
+      last = convert(promise)
+      promise.complete(i)
+      i += 1
+    }
+    Await.result(last, Duration.Inf)
+    System.nanoTime() - start
+  }
+
+  private def scalaToVertx(iterations: Int, convert: Promise[Integer] => io.vertx.core.Future[Integer]): Long = {
+    val start = System.nanoTime()
+    var i = 0
+    var last: io.vertx.core.Future[Integer] = null
+    while (i < iterations) {
+      val promise = Promise[Integer]()
+      last = convert(promise)
+      promise.success(i)
+      i += 1
+    }
+    last.toCompletionStage.toCompletableFuture.get()
+    System.nanoTime() - start
+  }
+
+  private def report(round: Int, iterations: Int, name: String, nanos: Long): Unit =
+    println(f"round $round%2d $name%-35s ${nanos.toDouble / iterations}%8.1f ns/op")
+}
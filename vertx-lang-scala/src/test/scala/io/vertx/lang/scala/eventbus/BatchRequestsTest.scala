@@ -0,0 +1,146 @@
+package io.vertx.lang.scala.eventbus
+
+import io.vertx.core.eventbus.{DeliveryOptions, ReplyException, ReplyFailure}
+import io.vertx.core.{MultiMap, Vertx}
+import io.vertx.lang.scala._
+import org.scalatest.flatspec.AsyncFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.concurrent.{Future, Promise}
+
+case class Query(text: String)
+
+object Query {
+  implicit val codec: BinaryCodec[Query] = BinaryCodec.derived
+}
+
+case class Hits(text: String, count: Int)
+
+object Hits {
+  implicit val codec: BinaryCodec[Hits] = BinaryCodec.derived
+}
+
+class BatchRequestsTest extends AsyncFlatSpec with Matchers {
+
+  private val queries = (1 to 200).map(i => Query(s"q$i"))
+
+  private def search(vertx: Vertx, address: String): Unit =
+    vertx.eventBus().replyingConsumer[Query, Hits](address) { query =>
+      if (query.text == "fail") Future.failed(new IllegalArgumentException("bad query"))
+      else if (query.text == "throw") throw new IllegalStateException("thrown")
+      else Future.successful(Hits(query.text, query.text.length))
+    }
+
+  "requestAll" should "collect all replies in order" in {
+    val vertx = Vertx.vertx
+    search(vertx, "search")
+    vertx.requestAll[Query, Hits]("search", queries)
+      .map(_ should equal(queries.map(q => Hits(q.text, q.text.length))))
+  }
+
+  it should "unregister the reply consumer when done" in {
+    val vertx = Vertx.vertx
+    val replyAddress = Promise[String]()
+    vertx.eventBus().consumerTyped[Query]("recording")(msg => {
+      val address = msg.headers().get(BatchRequests.ReplyAddressHeader)
+      replyAddress.trySuccess(address)
+      vertx.eventBus().send(address, Hits("a", 1),
+        new DeliveryOptions().addHeader(BatchRequests.IndexHeader, msg.headers().get(BatchRequests.IndexHeader)))
+    })
+    vertx.requestAll[Query, Hits]("recording", Seq(Query("a")))
+      .flatMap(_ => replyAddress.future)
+      .flatMap(address => vertx.eventBus().request[String](address, "late").asScala().failed)
+      .map {
+        case e: ReplyException => e.failureType() should equal(ReplyFailure.NO_HANDLERS)
+        case other => fail(other)
+      }
+  }
+
+  it should "fail with the first failed reply" in {
+    val vertx = Vertx.vertx
+    search(vertx, "search")
+    vertx.requestAll[Query, Hits]("search", Seq(Query("a"), Query("fail"), Query("b"))).failed.map {
+      case e: ReplyException =>
+        e.failureType() should equal(ReplyFailure.RECIPIENT_FAILURE)
+        e.getMessage should equal("bad query")
+      case other => fail(other)
+    }
+  }
+
+  it should "time out the batch as a whole" in {
+    val vertx = Vertx.vertx
+    vertx.requestAll[Query, Hits]("nobody", queries, new DeliveryOptions().setSendTimeout(100)).failed.map {
+      case e: ReplyException => e.failureType() should equal(ReplyFailure.TIMEOUT)
+      case other => fail(other)
+    }
+  }
+
+  it should "keep the headers of the options" in {
+    val vertx = Vertx.vertx
+    vertx.eventBus().consumerTyped[Query]("headers")(msg =>
+      vertx.eventBus().send(msg.headers().get(BatchRequests.ReplyAddressHeader), Hits(msg.headers().get("tenant"), 0),
+        new DeliveryOptions().addHeader(BatchRequests.IndexHeader, msg.headers().get(BatchRequests.IndexHeader))))
+    val options = new DeliveryOptions().setHeaders(MultiMap.caseInsensitiveMultiMap().add("tenant", "acme"))
+    vertx.requestAll[Query, Hits]("headers", Seq(Query("a")), options).map(_ should equal(Seq(Hits("acme", 0))))
+  }
+
+  it should "fail the reply of a throwing handler" in {
+    val vertx = Vertx.vertx
+    search(vertx, "search")
+    vertx.requestAll[Query, Hits]("search", Seq(Query("a"), Query("throw"))).failed.map {
+      case e: ReplyException =>
+        e.failureCode() should equal(BatchRequests.FailureCode)
+        e.getMessage should equal("thrown")
+      case other => fail(other)
+    }
+  }
+
+  "requestBatched" should "send envelopes and return the replies in order" in {
+    val vertx = Vertx.vertx
+    val envelopes = new java.util.concurrent.atomic.AtomicInteger()
+    vertx.eventBus().addInboundInterceptor[AnyRef](ctx => {
+      if (ctx.message().address() == "batched") envelopes.incrementAndGet()
+      ctx.next()
+    })
+    search(vertx, "batched")
+    vertx.eventBus().requestBatched[Query, Hits]("batched", queries, batchSize = 50).map { hits =>
+      hits should equal(queries.map(q => Hits(q.text, q.text.length)))
+      envelopes.get() should equal(4)
+    }
+  }
+
+  it should "fail the envelope if one value fails" in {
+    val vertx = Vertx.vertx
+    search(vertx, "batched")
+    vertx.eventBus().requestBatched[Query, Hits]("batched", Seq(Query("a"), Query("fail"))).failed.map {
+      case e: ReplyException => e.failureCode() should equal(BatchRequests.FailureCode)
+      case other => fail(other)
+    }
+  }
+
+  it should "fail the envelope if the handler throws" in {
+    val vertx = Vertx.vertx
+    search(vertx, "batched")
+    vertx.eventBus().requestBatched[Query, Hits]("batched", Seq(Query("a"), Query("throw"))).failed.map {
+      case e: ReplyException => e.failureCode() should equal(BatchRequests.FailureCode)
+      case other => fail(other)
+    }
+  }
+
+  "replyingConsumer" should "still answer plain requests" in {
+    val vertx = Vertx.vertx
+    search(vertx, "search")
+    vertx.eventBus().requestTyped[Query, Hits]("search", Query("abc")).map(_ should equal(Hits("abc", 3)))
+  }
+
+  it should "fail plain requests the handler throws on" in {
+    val vertx = Vertx.vertx
+    search(vertx, "search")
+    vertx.eventBus().requestTyped[Query, Hits]("search", Query("throw")).failed.map {
+      case e: ReplyException =>
+        e.failureCode() should equal(BatchRequests.FailureCode)
+        e.getMessage should equal("thrown")
+      case other => fail(other)
+    }
+  }
+}
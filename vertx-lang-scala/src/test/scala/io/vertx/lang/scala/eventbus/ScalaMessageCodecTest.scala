@@ -0,0 +1,97 @@
+package io.vertx.lang.scala.eventbus
+
+import io.vertx.core.Vertx
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.json.JsonObject
+import org.scalatest.flatspec.AsyncFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.concurrent.Promise
+
+case class Item(name: String, quantity: Int)
+
+case class Order(id: Long, items: Seq[Item], note: Option[String], prices: Map[String, Double], meta: JsonObject)
+
+object Order {
+  implicit val codec: BinaryCodec[Order] = BinaryCodec.derived
+}
+
+sealed trait Event
+case class Created(order: Order) extends Event
+case class Cancelled(id: Long, reason: String) extends Event
+case object Heartbeat extends Event
+
+object Event {
+  implicit val codec: BinaryCodec[Event] = BinaryCodec.derived
+}
+
+case class Node(value: Int, children: List[Node])
+
+object Node {
+  implicit val codec: BinaryCodec[Node] = BinaryCodec.derived
+}
+
+class ScalaMessageCodecTest extends AsyncFlatSpec with Matchers {
+
+  private val order = Order(-7L, Vector(Item("book", 2), Item("pen", 10)), Some("gift ✓"),
+    Map("book" -> 9.5, "pen" -> 1.25), new JsonObject().put("source", "web"))
+
+  "BinaryCodec" should "round-trip a case class" in {
+    BinaryCodec[Order].decode(BinaryCodec[Order].encode(order)) should equal(order)
+  }
+
+  it should "round-trip the members of a sealed trait" in {
+    val events = Seq(Created(order), Cancelled(3, "late"), Heartbeat)
+    events.map(e => BinaryCodec[Event].decode(BinaryCodec[Event].encode(e))) should equal(events)
+  }
+
+  it should "round-trip recursive types" in {
+    val tree = Node(1, List(Node(2, Nil), Node(3, List(Node(4, Nil)))))
+    BinaryCodec[Node].decode(BinaryCodec[Node].encode(tree)) should equal(tree)
+  }
+
+  it should "write small numbers as a single byte" in {
+    BinaryCodec[Int].encode(-64).length() should equal(1)
+    BinaryCodec[Long].encode(63L).length() should equal(1)
+    Seq(Int.MinValue, -1, 0, 1, Int.MaxValue).map(i => BinaryCodec[Int].decode(BinaryCodec[Int].encode(i))) should
+      equal(Seq(Int.MinValue, -1, 0, 1, Int.MaxValue))
+    Seq(Long.MinValue, Long.MaxValue).map(l => BinaryCodec[Long].decode(BinaryCodec[Long].encode(l))) should
+      equal(Seq(Long.MinValue, Long.MaxValue))
+  }
+
+  it should "be more compact than JSON" in {
+    BinaryCodec.derived[Cancelled].encode(Cancelled(3, "late")).length() should be < """{"id":3,"reason":"late"}""".length
+  }
+
+  "ScalaMessageCodec" should "decode what it encoded to the wire at any position" in {
+    val codec = new ScalaMessageCodec[Event]("events", classOf[Event], Event.codec)
+    val wire = Buffer.buffer("header")
+    codec.encodeToWire(wire, Created(order))
+    codec.decodeFromWire(6, wire) should equal(Created(order))
+  }
+
+  it should "pass the same instance on local delivery" in {
+    val vertx = Vertx.vertx
+    val received = Promise[Order]()
+    vertx.eventBus().consumerTyped[Order]("orders")(msg => received.success(msg.body()))
+    vertx.eventBus().sendTyped("orders", order)
+    received.future.map(_ should be theSameInstanceAs order)
+  }
+
+  it should "send sealed trait members and replies" in {
+    val vertx = Vertx.vertx
+    vertx.eventBus().consumerTyped[Event]("events")(msg => msg.body() match {
+      case Cancelled(id, _) => msg.replyTyped[Event](Cancelled(id + 1, "done"))
+      case other => msg.replyTyped[Event](other)
+    })
+    vertx.eventBus().requestTyped[Event, Event]("events", Cancelled(1, "now"))
+      .map(_ should equal(Cancelled(2, "done")))
+  }
+
+  it should "register each type once per event bus" in {
+    val vertx = Vertx.vertx
+    val first = vertx.eventBus().registerScalaCodec[Order]()
+    vertx.eventBus().registerScalaCodec[Order]() should be theSameInstanceAs first
+    first.name should equal("scala:io.vertx.lang.scala.eventbus.Order")
+  }
+}
@@ -0,0 +1,65 @@
+package io.vertx.lang.scala.json
+
+import io.vertx.lang.scala.json.Json.JsArray
+import org.junit.jupiter.api.Assertions._
+import org.junit.jupiter.api.Test
+
+class JsonAccessTest {
+
+  private val doc = new JsonObject(
+    """{"name":"doc","count":3,"big":12345678901,"ratio":0.5,"ok":true,
+      |"a":{"b":[10,{"c":"deep"},[1,2]]},"addresses":[{"street":"x","zip":1},{"street":"y","zip":2}]}""".stripMargin)
+
+  @Test
+  def typedGettersTest(): Unit = {
+    assertEquals(Some("doc"), doc.string("name"))
+    assertEquals(Some(3), doc.int("count"))
+    assertEquals(Some(12345678901L), doc.long("big"))
+    assertEquals(Some(0.5), doc.double("ratio"))
+    assertEquals(Some(true), doc.boolean("ok"))
+    assertEquals(None, doc.int("name"))
+    assertEquals(None, doc.string("missing"))
+    assertEquals(7, doc.int("missing", 7))
+    assertEquals(3L, doc.long("count", 0L))
+    assertEquals("dflt", doc.string("count", "dflt"))
+    assertTrue(doc.obj("a").isDefined)
+    assertTrue(doc.arr("addresses").isDefined)
+    assertEquals(None, doc.obj("addresses"))
+  }
+
+  @Test
+  def pathTest(): Unit = {
+    assertEquals(Some("deep"), doc.at("a", "b", 1, "c"))
+    assertEquals(Some(10), doc.at("a", "b", 0))
+    assertEquals(Some(new JsonArray("[1,2]")), doc.at("a", "b", 2))
+    assertEquals(Some(2), doc.atAs[Int]("a", "b", 2, 1))
+    assertEquals(None, doc.at("a", "b", 3))
+    assertEquals(None, doc.at("a", 0))
+    assertEquals(None, doc.at("name", "x"))
+    assertEquals(Some("y"), doc.arr("addresses").get.at(1, "street"))
+  }
+
+  @Test
+  def viewsTest(): Unit = {
+    val addresses = doc.arr("addresses").get
+
+    assertEquals(Seq(Address("x", 1), Address("y", 2)), addresses.elementsAs(JsonCodec.derived[Address]).toSeq)
+    assertEquals(2, addresses.elements.length)
+    assertEquals(Some("x"), addresses.elements.head.asInstanceOf[JsonObject].string("street"))
+    assertEquals(Some(1), addresses.obj(0).flatMap(_.int("zip")))
+    assertEquals(None, addresses.int(5))
+
+    addresses.add(Json.obj("street" -> "z", "zip" -> 3))
+    assertEquals(3, addresses.elements.length, "views are live")
+  }
+
+  @Test
+  def decodeFieldTest(): Unit = {
+    implicit val addressCodec: JsonCodec[Address] = JsonCodec.derived
+
+    assertEquals(Some(List(Address("x", 1), Address("y", 2))), doc.get[List[Address]]("addresses"))
+    assertEquals(None, doc.get[Address]("missing"))
+    assertEquals(Seq("name", "count", "big", "ratio", "ok", "a", "addresses"), doc.fields.map(_._1).toSeq)
+    assertTrue(doc.fields.toMap.apply("a").isInstanceOf[JsonObject])
+  }
+}
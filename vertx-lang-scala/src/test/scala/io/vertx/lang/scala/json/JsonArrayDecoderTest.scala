@@ -0,0 +1,142 @@
+package io.vertx.lang.scala.json
+
+import io.vertx.core.Handler
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.json.DecodeException
+import io.vertx.core.streams.ReadStream
+import org.junit.jupiter.api.Assertions._
+import org.junit.jupiter.api.Test
+
+import scala.collection.mutable
+
+case class Event(id: Int, name: String, tags: List[String])
+
+object Event {
+  implicit val codec: JsonCodec[Event] = JsonCodec.derived
+}
+
+class JsonArrayDecoderTest {
+
+  private val events = (1 to 100).map(i => Event(i, s"event $i", List.fill(i % 3)("tag")))
+  private val json = JsonCodec[Seq[Event]].encode(events).toString()
+
+  @Test
+  def decodeChunksTest(): Unit = {
+    val source = new ChunkedStream(json.grouped(7).toSeq)
+    val decoded = mutable.ArrayBuffer[Event]()
+    var ended = false
+
+    Json.decodeArray[Event](source).endHandler(_ => ended = true).handler(decoded += _)
+
+    assertEquals(events, decoded)
+    assertTrue(ended)
+  }
+
+  @Test
+  def backpressureTest(): Unit = {
+    val source = new ChunkedStream(json.grouped(7).toSeq)
+    val decoded = mutable.ArrayBuffer[Event]()
+    val decoder = Json.decodeArray[Event](source).pause().handler(decoded += _)
+
+    decoder.fetch(1)
+    source.flush()
+    assertEquals(events.take(1), decoded)
+    assertTrue(source.remaining > json.length / 7 - 10, "only the chunks of the first element are read")
+
+    decoder.fetch(10)
+    source.flush()
+    assertEquals(events.take(11), decoded)
+
+    decoder.resume()
+    source.flush()
+    assertEquals(events, decoded)
+  }
+
+  @Test
+  def elementsOfAnyTypeTest(): Unit = {
+    val decoded = mutable.ArrayBuffer[Seq[Int]]()
+
+    Json.decodeArray[Seq[Int]](new ChunkedStream(Seq("[[1,2],", "[],[3]", "]"))).handler(decoded += _)
+
+    assertEquals(Seq(Seq(1, 2), Seq(), Seq(3)), decoded)
+  }
+
+  @Test
+  def noArrayTest(): Unit = {
+    var failure: Throwable = null
+    val decoded = mutable.ArrayBuffer[Event]()
+
+    Json.decodeArray[Event](new ChunkedStream(Seq("""{"id":1}"""))).exceptionHandler(failure = _).handler(decoded += _)
+
+    assertTrue(failure.isInstanceOf[DecodeException])
+    assertTrue(decoded.isEmpty)
+  }
+
+  @Test
+  def invalidElementTest(): Unit = {
+    var failure: Throwable = null
+    val decoded = mutable.ArrayBuffer[Event]()
+
+    Json.decodeArray[Event](new ChunkedStream(Seq("""[{"id":1,"name":"a","tags":[]},{"id":"two"},{"id":3}]""")))
+      .exceptionHandler(failure = _)
+      .handler(decoded += _)
+
+    assertEquals(Seq(Event(1, "a", Nil)), decoded)
+    assertTrue(failure.isInstanceOf[DecodeException])
+  }
+
+  /**
+    * Emits the chunks as long as there is demand, when the handler is set or [[flush]] is called. Like a socket it
+    * doesn't emit from within `fetch` or `resume`, but the next time it gets to run.
+    */
+  private class ChunkedStream(chunks: Seq[String]) extends ReadStream[Buffer] {
+    private val pending = mutable.Queue(chunks: _*)
+    private var dataHandler: Handler[Buffer] = _
+    private var onEnd: Handler[Void] = _
+    private var demand = Long.MaxValue
+    private var emitting = false
+
+    def remaining: Int = pending.size
+
+    override def handler(handler: Handler[Buffer]): ReadStream[Buffer] = {
+      dataHandler = handler
+      emit()
+      this
+    }
+
+    override def exceptionHandler(handler: Handler[Throwable]): ReadStream[Buffer] = this
+
+    override def endHandler(handler: Handler[Void]): ReadStream[Buffer] = {
+      onEnd = handler
+      this
+    }
+
+    override def pause(): ReadStream[Buffer] = {
+      demand = 0
+      this
+    }
+
+    override def resume(): ReadStream[Buffer] = fetch(Long.MaxValue)
+
+    override def fetch(amount: Long): ReadStream[Buffer] = {
+      demand = if (Long.MaxValue - demand < amount) Long.MaxValue else demand + amount
+      this
+    }
+
+    def flush(): Unit = emit()
+
+    private def emit(): Unit = if (!emitting) {
+      emitting = true
+      while (dataHandler != null && demand > 0 && pending.nonEmpty) {
+        if (demand != Long.MaxValue) demand -= 1
+        dataHandler.handle(Buffer.buffer(pending.dequeue()))
+      }
+      if (dataHandler != null && pending.isEmpty && onEnd != null) {
+        val end = onEnd
+        onEnd = null
+        end.handle(null)
+      }
+      emitting = false
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package io.vertx.lang.scala.json
+
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.json.DecodeException
+import org.junit.jupiter.api.Assertions._
+import org.junit.jupiter.api.Test
+
+case class Address(street: String, zip: Int)
+
+case class Person(name: String, age: Int, score: Double, active: Boolean, emails: Seq[String],
+                  address: Option[Address], tags: Map[String, Long], extra: JsonObject)
+
+object Person {
+  implicit val codec: JsonCodec[Person] = JsonCodec.derived
+}
+
+sealed trait Shape
+case class Circle(radius: Double) extends Shape
+case class Rectangle(width: Double, height: Double) extends Shape
+case object Empty extends Shape
+
+object Shape {
+  implicit val codec: JsonCodec[Shape] = JsonCodec.derived
+}
+
+case class Tree(value: Int, children: List[Tree])
+
+object Tree {
+  implicit val codec: JsonCodec[Tree] = JsonCodec.derived
+}
+
+case class Box[A](content: A, labels: Set[String])
+
+class JsonCodecTest {
+
+  private val person = Person("Jane", 42, 1.5, active = true, Vector("jane@example.com"),
+    Some(Address("Main Street", 12345)), Map("visits" -> 3L), Json.obj("any" -> Json.arr(1, "x")))
+
+  @Test
+  def encodeCaseClassTest(): Unit = {
+    val expected = Json.obj(
+      "name" -> "Jane",
+      "age" -> 42,
+      "score" -> 1.5,
+      "active" -> true,
+      "emails" -> Json.arr(List("jane@example.com")),
+      "address" -> Json.obj("street" -> "Main Street", "zip" -> 12345),
+      "tags" -> Json.obj("visits" -> 3L),
+      "extra" -> Json.obj("any" -> Json.arr(1, "x")))
+
+    assertEquals(expected.encode(), JsonCodec[Person].encode(person).toString())
+    assertEquals(expected, JsonCodec[Person].toJsonObject(person))
+  }
+
+  @Test
+  def roundTripTest(): Unit = {
+    val codec = JsonCodec[Person]
+
+    assertEquals(person, codec.decode(codec.encode(person)))
+    assertEquals(person, codec.fromJson(codec.toJson(person)))
+    assertEquals(person.copy(address = None), codec.decode(codec.encode(person.copy(address = None))))
+  }
+
+  @Test
+  def decodeTest(): Unit = {
+    val json = """{"unknown":{"nested":[1,2]},"age":7,"name":"Max","score":1,"active":false,"emails":[],"tags":{},"extra":{}}"""
+    val expected = Person("Max", 7, 1.0, active = false, Nil, None, Map.empty, new JsonObject())
+
+    assertEquals(expected, JsonCodec[Person].decode(Buffer.buffer(json)))
+    assertEquals(expected, JsonCodec[Person].fromJson(new JsonObject(json)))
+  }
+
+  @Test
+  def missingFieldTest(): Unit = {
+    val codec = JsonCodec.derived[Address]
+
+    val e = assertThrows(classOf[DecodeException], () => codec.decode(Buffer.buffer("""{"street":"x"}""")))
+    assertEquals("Missing field zip", e.getMessage)
+    assertThrows(classOf[DecodeException], () => codec.fromJson(new JsonObject("""{"street":"x"}""")))
+    assertThrows(classOf[DecodeException], () => codec.decode(Buffer.buffer("""{"street":"x","zip":"1"}""")))
+  }
+
+  @Test
+  def sealedTraitTest(): Unit = {
+    val shapes: Seq[Shape] = Seq(Circle(1.0), Rectangle(2.0, 3.0), Empty)
+    val codec = JsonCodec[Seq[Shape]]
+
+    val encoded = codec.encode(shapes)
+
+    assertEquals("""[{"Circle":{"radius":1.0}},{"Rectangle":{"width":2.0,"height":3.0}},{"Empty":{}}]""", encoded.toString())
+    assertEquals(shapes, codec.decode(encoded))
+    assertEquals(shapes, codec.fromJson(codec.toJson(shapes)))
+    assertThrows(classOf[DecodeException], () => JsonCodec[Shape].decode(Buffer.buffer("""{"Triangle":{}}""")))
+  }
+
+  @Test
+  def recursiveTest(): Unit = {
+    val tree = Tree(1, List(Tree(2, Nil), Tree(3, List(Tree(4, Nil)))))
+
+    assertEquals(tree, JsonCodec[Tree].decode(JsonCodec[Tree].encode(tree)))
+  }
+
+  @Test
+  def genericTest(): Unit = {
+    val codec = JsonCodec.derived[Box[Address]]
+    val box = Box(Address("x", 1), Set("a"))
+
+    assertEquals("""{"content":{"street":"x","zip":1},"labels":["a"]}""", codec.encode(box).toString())
+    assertEquals(box, codec.decode(codec.encode(box)))
+  }
+}
@@ -0,0 +1,75 @@
+package io.vertx.lang.scala.json
+
+import io.netty.buffer.Unpooled
+import io.vertx.core.buffer.Buffer
+import org.junit.jupiter.api.Assertions._
+import org.junit.jupiter.api.Test
+
+import java.nio.charset.StandardCharsets
+
+class JsonWriterTest {
+
+  @Test
+  def writeLikeEncodeTest(): Unit = {
+    val expected = Json.obj(
+      "foo" -> "foo text",
+      "bar" -> 3.45d,
+      "baz" -> false,
+      "myInt" -> Integer.MAX_VALUE,
+      "myLong" -> Long.MinValue,
+      "nothing" -> null,
+      "list" -> Json.arr(1, -20, 35.4f, "x", Json.obj(), Json.arr()),
+      "nested" -> Json.obj("next" -> Json.arr(3, 4))).encode()
+
+    val written = Json.writeObj(_
+      .field("foo", "foo text")
+      .field("bar", 3.45d)
+      .field("baz", false)
+      .field("myInt", Integer.MAX_VALUE)
+      .field("myLong", Long.MinValue)
+      .nullField("nothing")
+      .arr("list", _.value(1).value(-20).value(35.4f).value("x").obj(_ => ()).arr(_ => ()))
+      .obj("nested", _.arr("next", _.value(3).value(4))))
+
+    assertEquals(expected, written.toString())
+  }
+
+  @Test
+  def escapeLikeEncodeTest(): Unit = {
+    val text = "quote\" backslash\\ slash/ newline\n tab\t bell\u0007 umlautä emoji😀"
+
+    val written = Json.writeArr(_.value(text).value(null: String))
+
+    assertEquals(Json.arr(text, null).encode(), written.toString(StandardCharsets.UTF_8))
+    assertEquals(text, new JsonArray(written).getString(0))
+  }
+
+  @Test
+  def numbersTest(): Unit = {
+    val numbers = Seq(0L, 7L, 9L, 10L, 99L, 100L, 123456789L, -1L, -10L, Long.MaxValue, Long.MinValue + 1)
+
+    val written = Json.writeArr(w => numbers.foreach(w.value))
+
+    assertEquals(Json.arr(numbers: _*).encode(), written.toString())
+  }
+
+  @Test
+  def streamingTest(): Unit = {
+    val byteBuf = Unpooled.buffer()
+    val writer = JsonWriter(byteBuf).beginArray()
+    (1 to 3).foreach(i => writer.beginObject().name("id").value(i).field("json", Json.obj("x" -> i)).endObject())
+    writer.endArray()
+
+    assertEquals("""[{"id":1,"json":{"x":1}},{"id":2,"json":{"x":2}},{"id":3,"json":{"x":3}}]""",
+      byteBuf.toString(StandardCharsets.UTF_8))
+  }
+
+  @Test
+  def appendToBufferTest(): Unit = {
+    val buffer = Buffer.buffer("prefix:")
+    JsonWriter.append(buffer)(_.obj(_.field("a", 1)))
+
+    assertEquals("""prefix:{"a":1}""", buffer.toString())
+    assertEquals(14, buffer.length())
+  }
+}
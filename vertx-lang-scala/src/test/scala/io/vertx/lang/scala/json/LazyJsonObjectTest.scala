@@ -0,0 +1,75 @@
+package io.vertx.lang.scala.json
+
+import io.vertx.core.buffer.Buffer
+import io.vertx.core.json.DecodeException
+import org.junit.jupiter.api.Assertions._
+import org.junit.jupiter.api.Test
+
+class LazyJsonObjectTest {
+
+  // Formatting and field order have to survive forwarding
+  private val json =
+    """{ "type" : "order",
+      |  "id": 42, "nothing": null,
+      |  "customer": {"name": "Jane", "address": {"street": "x", "zip": 1}},
+      |  "items": [{"sku": "a", "qty": 1}, {"sku": "b", "qty": 2}],
+      |  "total": 10.5, "paid": true }""".stripMargin
+
+  @Test
+  def fieldsTest(): Unit = {
+    val obj = LazyJsonObject(json)
+
+    assertEquals(Some("order"), obj.string("type"))
+    assertEquals(Some(42), obj.int("id"))
+    assertEquals(Some(10.5), obj.double("total"))
+    assertEquals(Some(true), obj.boolean("paid"))
+    assertEquals(None, obj.value("nothing"))
+    assertEquals(None, obj.value("missing"))
+    assertFalse(obj.contains("missing"))
+    assertEquals(Some(new JsonArray("""[{"sku": "a", "qty": 1}, {"sku": "b", "qty": 2}]""")), obj.arr("items"))
+  }
+
+  @Test
+  def nestedObjectTest(): Unit = {
+    val customer = LazyJsonObject(json).obj("customer").get
+
+    assertEquals("""{"name": "Jane", "address": {"street": "x", "zip": 1}}""", customer.encode())
+    assertEquals(Some("Jane"), customer.string("name"))
+    assertEquals(Some(1), customer.obj("address").flatMap(_.int("zip")))
+  }
+
+  @Test
+  def pathTest(): Unit = {
+    val obj = LazyJsonObject(json)
+
+    assertEquals(Some("b"), obj.at("items", 1, "sku"))
+    assertEquals(Some(1), obj.at("customer", "address", "zip"))
+    assertEquals(None, obj.at("items", 2))
+    assertEquals(None, obj.at("customer", 0))
+    assertEquals(Some(Address("x", 1)), obj.get("customer", "address")(JsonCodec.derived[Address]))
+    assertEquals(Some(2), obj.get[Int]("items", 1, "qty"))
+  }
+
+  @Test
+  def forwardTest(): Unit = {
+    val buffer = Buffer.buffer(json)
+    val obj = LazyJsonObject(buffer)
+    obj.string("type")
+
+    assertSame(buffer, obj.buffer)
+    assertEquals(json, obj.encode())
+    assertEquals(new JsonObject(json), obj.toJsonObject)
+
+    val written = Json.writeObj(_.field("envelope", 1).name("payload").encoded(obj.buffer))
+    assertEquals(s"""{"envelope":1,"payload":$json}""", written.toString())
+  }
+
+  @Test
+  def invalidJsonTest(): Unit = {
+    val obj = LazyJsonObject("""{"a": 1, "b": }""")
+
+    assertEquals(Some(1), obj.int("a"))
+    assertThrows(classOf[DecodeException], () => obj.int("b"))
+    assertThrows(classOf[DecodeException], () => LazyJsonObject("[1]").int("a"))
+  }
+}
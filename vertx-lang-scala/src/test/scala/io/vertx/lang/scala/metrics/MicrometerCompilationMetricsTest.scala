@@ -0,0 +1,37 @@
+package io.vertx.lang.scala.metrics
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import io.vertx.lang.scala.onthefly.{CompilerPool, OnTheFlyCompiler}
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+class MicrometerCompilationMetricsTest extends AnyFlatSpec with Matchers {
+
+  "Compilation metrics" should "record runs, phases and diagnostics of a pool" in {
+    val registry = new SimpleMeterRegistry()
+    val pool = new CompilerPool(1, () => CompilerPool.defaultSettings())
+    MicrometerCompilationMetrics.register(registry, pool)
+    val compiler = new OnTheFlyCompiler(None, pool)
+
+    compiler.compileClass("class Measured")
+    intercept[ClassNotFoundException](compiler.compileClass("class Unmeasurable extends Missing"))
+
+    registry.get("vertx.scala.compile.time").tags("outcome", "success").timer().count() shouldBe 1L
+    registry.get("vertx.scala.compile.time").tags("outcome", "failure").timer().count() shouldBe 1L
+    registry.get("vertx.scala.compile.phase.time").tags("phase", "typer").timer().count() shouldBe 2L
+    registry.get("vertx.scala.compile.file.time").timer().count() shouldBe 2L
+    registry.get("vertx.scala.compile.file.time").timer().getId.getTags shouldBe empty
+    registry.get("vertx.scala.compile.diagnostics").tags("severity", "error").counter().count() shouldBe 1.0
+  }
+
+  it should "only tag the time per source with the file if asked to" in {
+    val registry = new SimpleMeterRegistry()
+    val pool = new CompilerPool(1, () => CompilerPool.defaultSettings())
+    MicrometerCompilationMetrics.register(registry, pool, tagFiles = true)
+    val compiler = new OnTheFlyCompiler(None, pool)
+
+    compiler.compileClass("class Tagged")
+
+    registry.get("vertx.scala.compile.file.time").tags("file", compiler.defaultName).timer().count() shouldBe 1L
+  }
+}
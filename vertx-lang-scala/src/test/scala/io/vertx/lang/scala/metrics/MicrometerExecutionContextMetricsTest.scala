@@ -0,0 +1,59 @@
+package io.vertx.lang.scala.metrics
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import io.vertx.core.{Context, Vertx}
+import io.vertx.lang.scala.{BatchingVertxExecutionContext, VertxExecutionContext}
+import org.scalatest.flatspec.AsyncFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.concurrent.{ExecutionContext, Future, Promise}
+
+class MicrometerExecutionContextMetricsTest extends AsyncFlatSpec with Matchers {
+
+  "A VertxExecutionContext with metrics" should "count inline and scheduled Runnables" in {
+    val vertx = Vertx.vertx
+    val ctx = vertx.getOrCreateContext()
+    val registry = new SimpleMeterRegistry()
+    val exec = VertxExecutionContext(vertx, ctx, MicrometerExecutionContextMetrics(registry, "test"))
+    val done = Promise[Unit]()
+
+    Future {
+      exec.execute(() => {
+        exec.execute(() => done.success(()))
+      })
+    }(ExecutionContext.global)
+
+    done.future.flatMap(_ => nextTaskOn(ctx)).map(_ => {
+      registry.get("vertx.scala.ec.tasks").tags("context", "test", "dispatch", "scheduled").counter().count() should equal(1.0)
+      registry.get("vertx.scala.ec.tasks").tags("context", "test", "dispatch", "inline").counter().count() should equal(1.0)
+      registry.get("vertx.scala.ec.task.time").tags("context", "test").timer().count() should equal(2L)
+    })
+  }
+
+  "A BatchingVertxExecutionContext with metrics" should "record every Runnable" in {
+    val vertx = Vertx.vertx
+    val ctx = vertx.getOrCreateContext()
+    val registry = new SimpleMeterRegistry()
+    val exec = BatchingVertxExecutionContext(vertx, ctx, metrics = MicrometerExecutionContextMetrics(registry, "batching"))
+    val done = Promise[Unit]()
+
+    Future {
+      (1 to 9).foreach(_ => exec.execute(() => ()))
+      exec.execute(() => done.success(()))
+    }(ExecutionContext.global)
+
+    done.future.flatMap(_ => nextTaskOn(ctx)).map(_ => {
+      registry.get("vertx.scala.ec.queue.delay").tags("context", "batching").timer().count() should equal(10L)
+    })
+  }
+
+  /**
+    * Measurements are recorded after a Runnable returns, waiting for the next task on the context makes sure
+    * they are complete.
+    */
+  private def nextTaskOn(ctx: Context): Future[Unit] = {
+    val promise = Promise[Unit]()
+    ctx.runOnContext(_ => promise.success(()))
+    promise.future
+  }
+}
@@ -0,0 +1,131 @@
+package io.vertx.lang.scala.streams
+
+import io.vertx.core.Handler
+import io.vertx.core.streams.ReadStream
+import io.vertx.lang.scala._
+import io.vertx.lang.scala.pump.JavaFakeWriteStream
+import org.scalatest.flatspec.AsyncFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.collection.mutable
+import scala.concurrent.{Future, Promise}
+
+/**
+  * Emits its elements synchronously from `fetch`, like an InboundBuffer with buffered elements.
+  */
+class FetchingReadStream[T](elements: Iterator[T]) extends ReadStream[T] {
+
+  var demand = 0L
+  var emitted = 0
+  private var handler: Handler[T] = _
+  private var endHandler: Handler[Void] = _
+  private var emitting = false
+
+  override def handler(handler: Handler[T]): ReadStream[T] = {
+    this.handler = handler
+    this
+  }
+
+  override def exceptionHandler(handler: Handler[Throwable]): ReadStream[T] = this
+
+  override def endHandler(endHandler: Handler[Void]): ReadStream[T] = {
+    this.endHandler = endHandler
+    this
+  }
+
+  override def pause(): ReadStream[T] = {
+    demand = 0
+    this
+  }
+
+  override def resume(): ReadStream[T] = fetch(Long.MaxValue)
+
+  override def fetch(amount: Long): ReadStream[T] = {
+    demand = if (demand + amount < 0) Long.MaxValue else demand + amount
+    if (!emitting) {
+      emitting = true
+      while (handler != null && demand > 0 && elements.hasNext) {
+        if (demand != Long.MaxValue) {
+          demand -= 1
+        }
+        emitted += 1
+        handler.handle(elements.next())
+      }
+      if (handler != null && !elements.hasNext && endHandler != null) {
+        val h = endHandler
+        endHandler = null
+        h.handle(null)
+      }
+      emitting = false
+    }
+    this
+  }
+}
+
+class AsyncStreamTest extends AsyncFlatSpec with Matchers {
+
+  "An AsyncStream" should "fuse map, filter and fold" in {
+    val source = new FetchingReadStream((1 to 1000).iterator)
+    source.asStream().map(_ * 2).filter(_ % 3 == 0).fold(0L)(_ + _)
+      .map(_ should equal((1 to 1000).map(_ * 2).filter(_ % 3 == 0).map(_.toLong).sum))
+  }
+
+  it should "group elements, including a smaller last group" in {
+    val source = new FetchingReadStream((1 to 10).iterator)
+    source.asStream().grouped(4).fold(Vector.empty[Seq[Int]])(_ :+ _)
+      .map(_ should equal(Seq(1 to 4, 5 to 8, 9 to 10)))
+  }
+
+  it should "run mapAsync in order with bounded parallelism" in {
+    val source = new FetchingReadStream((1 to 20).iterator)
+    val pending = mutable.Queue[(Int, Promise[Int])]()
+    var maxRunning = 0
+    val result = source.asStream().mapAsync(3) { i =>
+      val p = Promise[Int]()
+      pending.enqueue(i -> p)
+      maxRunning = math.max(maxRunning, pending.size)
+      p.future
+    }.fold(Vector.empty[Int])(_ :+ _)
+    // Complete in reverse order of each wave
+    while (pending.nonEmpty) {
+      val wave = pending.dequeueAll(_ => true)
+      wave.reverse.foreach { case (i, p) => p.success(i * 10) }
+    }
+    result.map { r =>
+      r should equal((1 to 20).map(_ * 10))
+      maxRunning should be <= 3
+    }
+  }
+
+  it should "fail on the first failed mapAsync element" in {
+    val source = new FetchingReadStream((1 to 10).iterator)
+    source.asStream()
+      .mapAsync(2)(i => if (i == 5) Future.failed(new IllegalStateException("five")) else Future.successful(i))
+      .fold(0)(_ + _).failed.map(_.getMessage should equal("five"))
+  }
+
+  it should "fail when a stage throws and stop reading" in {
+    val source = new FetchingReadStream((1 to 100).iterator)
+    source.asStream().map(i => if (i == 3) throw new IllegalArgumentException("three") else i)
+      .foreach(_ => ()).failed.map { e =>
+        e.getMessage should equal("three")
+        source.emitted should equal(3)
+      }
+  }
+
+  it should "stop requesting while the write queue is full" in {
+    val source = new FetchingReadStream((1 to 100).iterator)
+    val sink = new JavaFakeWriteStream[Int]().setWriteQueueMaxSize(10)
+    val done = source.asStream().map(_ + 1).pipeTo(sink, prefetch = 4)
+    // Elements requested before the queue got full still arrive, but not more than prefetch
+    source.emitted should equal(sink.received.size())
+    sink.received.size() should (be >= 10 and be <= 14)
+    val received = mutable.Buffer[Int]()
+    while (!done.isCompleted) {
+      sink.received.forEach(i => received += i)
+      sink.clearReceived()
+    }
+    sink.received.forEach(i => received += i)
+    done.map(_ => received should equal(2 to 101))
+  }
+}
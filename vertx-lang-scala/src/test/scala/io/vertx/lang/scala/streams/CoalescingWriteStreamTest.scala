@@ -0,0 +1,85 @@
+package io.vertx.lang.scala.streams
+
+import io.vertx.core.Vertx
+import io.vertx.core.buffer.Buffer
+import io.vertx.lang.scala._
+import io.vertx.lang.scala.pump.JavaFakeWriteStream
+import org.scalatest.flatspec.AsyncFlatSpec
+import org.scalatest.matchers.should.Matchers
+
+import scala.concurrent.Promise
+
+class CoalescingWriteStreamTest extends AsyncFlatSpec with Matchers {
+
+  private def chunk(i: Int, size: Int): Buffer = Buffer.buffer(Array.fill(size)(i.toByte))
+
+  "A CoalescingWriteStream" should "write once maxBytes are pending" in {
+    val vertx = Vertx.vertx
+    val sink = new JavaFakeWriteStream[Buffer]().setWriteQueueMaxSize(100)
+    val stream = CoalescingWriteStream(vertx, sink, maxBytes = 100, maxDelay = 60000)
+    val chunks = (1 to 10).map(chunk(_, 30))
+    chunks.foreach(stream.write)
+    sink.received.size() should equal(2)
+    stream.end().asScala().map { _ =>
+      sink.received.size() should equal(3)
+      sink.received.get(0).length() should equal(120)
+      val all = Buffer.buffer()
+      sink.received.forEach(b => all.appendBuffer(b))
+      all should equal(chunks.foldLeft(Buffer.buffer())(_.appendBuffer(_)))
+    }
+  }
+
+  it should "write pending buffers after maxDelay" in {
+    val vertx = Vertx.vertx
+    val sink = new JavaFakeWriteStream[Buffer]().setWriteQueueMaxSize(100)
+    val written = Promise[Int]()
+    vertx.runOnContext(_ => {
+      val stream = CoalescingWriteStream(vertx, sink, maxDelay = 10)
+      (1 to 5).foreach(i => stream.write(chunk(i, 3)))
+      stream.write(chunk(6, 3)).onComplete(_ => written.success(sink.received.size()))
+    })
+    written.future.map { writes =>
+      writes should equal(1)
+      sink.received.get(0).length() should equal(18)
+    }
+  }
+
+  it should "coalesce everything written in one go with a maxDelay of 0" in {
+    val vertx = Vertx.vertx
+    val sink = new JavaFakeWriteStream[Buffer]().setWriteQueueMaxSize(100)
+    val written = Promise[(Int, Int)]()
+    vertx.runOnContext(_ => {
+      val stream = CoalescingWriteStream(vertx, sink, maxDelay = 0)
+      (1 to 100).foreach(i => stream.write(chunk(i, 10)))
+      val writesBefore = sink.received.size()
+      stream.write(chunk(0, 1)).onComplete(_ => written.success(writesBefore -> sink.received.size()))
+    })
+    written.future.map(_ should equal(0 -> 1))
+  }
+
+  it should "reference large buffers instead of copying them" in {
+    val vertx = Vertx.vertx
+    val sink = new JavaFakeWriteStream[Buffer]().setWriteQueueMaxSize(100)
+    val stream = CoalescingWriteStream(vertx, sink, maxDelay = 60000, copyThreshold = 512)
+    val large = chunk(1, 1024)
+    stream.write(chunk(2, 10))
+    stream.write(large)
+    stream.flush()
+    large.setByte(0, 42)
+    sink.received.get(0).getByte(10) should equal(42)
+    sink.received.get(0).getByte(9) should equal(2)
+  }
+
+  it should "pass on the backpressure of the underlying stream" in {
+    val vertx = Vertx.vertx
+    val sink = new JavaFakeWriteStream[Buffer]().setWriteQueueMaxSize(2)
+    val stream = CoalescingWriteStream(vertx, sink, maxBytes = 10, maxDelay = 60000)
+    var drained = false
+    stream.drainHandler(_ => drained = true)
+    (1 to 4).foreach(i => stream.write(chunk(i, 5)))
+    stream.writeQueueFull() should equal(true)
+    sink.clearReceived()
+    stream.writeQueueFull() should equal(false)
+    drained should equal(true)
+  }
+}